@@ -0,0 +1,102 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The LiteNNUEVector class is the LiteNNUE kernel written with the Vector API.  The
+ * accumulators are worked on as int16 lanes as wide as the processor's registers; the
+ * dense layers widen the int16 weights to int32 lanes to multiply them.
+ * <p>
+ * It needs the jdk.incubator.vector module both to compile and to run, so it is kept
+ * out of src in a source root of its own.  Nothing refers to it by name so when it
+ * isn't built, or the module isn't added, LiteNNUEKernel.load() falls back to the
+ * scalar kernel.
+ */
+class LiteNNUEVector implements LiteNNUEKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    // shorts with as many lanes as INTS so they widen into one int vector
+    private static final VectorSpecies<Short> NARROW_SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2));
+
+    @Override
+    public String name() {
+        return "vector " + SHORTS.vectorBitSize() + "-bit";
+    }
+
+    @Override
+    public void add(final short[] accumulator, final short[] weights, final int base, final int count) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(count); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, base + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < count; i++) {
+            accumulator[i] += weights[base + i];
+        }
+    }
+
+    @Override
+    public void subtract(final short[] accumulator, final short[] weights, final int base, final int count) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(count); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, base + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < count; i++) {
+            accumulator[i] -= weights[base + i];
+        }
+    }
+
+    @Override
+    public void clip(final short[] from, final short[] to, final int offset, final int count, final int max) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(count); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, from, i)
+                    .max((short) 0)
+                    .min((short) max)
+                    .intoArray(to, offset + i);
+        }
+        for (; i < count; i++) {
+            to[offset + i] = (short) Integer.min(Integer.max(from[i], 0), max);
+        }
+    }
+
+    @Override
+    public void addColumn(final int[] sums, final short[] weights, final int base, final int input, final int count) {
+        int j = 0;
+        for (int bound = INTS.loopBound(count); j < bound; j += INTS.length()) {
+            IntVector.fromArray(INTS, sums, j)
+                    .add(widen(weights, base + j).mul(input))
+                    .intoArray(sums, j);
+        }
+        for (; j < count; j++) {
+            sums[j] += input * weights[base + j];
+        }
+    }
+
+    @Override
+    public int dot(final int[] values, final short[] weights, final int base, final int count) {
+        IntVector sums = IntVector.zero(INTS);
+        int j = 0;
+        for (int bound = INTS.loopBound(count); j < bound; j += INTS.length()) {
+            sums = sums.add(IntVector.fromArray(INTS, values, j).mul(widen(weights, base + j)));
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; j < count; j++) {
+            sum += values[j] * weights[base + j];
+        }
+        return sum;
+    }
+
+    // the int16 weights starting at offset as int32 lanes
+    private static IntVector widen(final short[] weights, final int offset) {
+        return (IntVector) ShortVector.fromArray(NARROW_SHORTS, weights, offset)
+                .convertShape(VectorOperators.S2I, INTS, 0);
+    }
+}
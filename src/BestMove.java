@@ -12,6 +12,13 @@ public class BestMove implements Serializable {
     public int value;
     public int movesExamined;
 
+    // set when the move leaves the other player with no moves, so nothing can beat it
+    public transient boolean noReplies;
+
+    // set when the search of the move was stopped before it finished, so its value is
+    // only what the part of the tree it got to says
+    public transient boolean stopped;
+
     public BestMove(boolean maximize) {
         value = maximize ? LiteUtil.MIN_VALUE : LiteUtil.MAX_VALUE;
         movesExamined = 0;
@@ -0,0 +1,421 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The BookBuilder class makes a PolyglotBook from the games in PGN files, such as
+ * games from a database or the games of self-play matches.
+ * <p>
+ * Every game is replayed on a LiteBoard up to some number of plies and each move of
+ * it is counted as a win, draw or loss for the side that made it.  The counts are
+ * kept in a hash map of primitive arrays keyed by the Polyglot key of the position
+ * and the move.  When the map gets to its size limit its entries are sorted and
+ * written to a run file and the map is emptied, so game files of any size are read
+ * with the same memory.  The runs are then merged into the book, which is sorted by
+ * key the way Polyglot books have to be.  Replaying the games is the slow part so
+ * batches of them are replayed on the search pool.
+ * <p>
+ * A move's weight is two points for each win and one for each draw, the way
+ * Polyglot's make-book does it, scaled down to fit 16 bits if need be.  Moves
+ * played in fewer than minGames games and moves that never scored are left out.
+ */
+public class BookBuilder {
+
+    // bytes in memory for each map slot: key, move and the three counts
+    private static final int SLOT_BYTES = 8 + 2 + 4 * 3;
+
+    // bytes of a run file record: key, move and the three counts
+    private static final int RUN_RECORD_BYTES = 8 + 2 + 4 * 3;
+
+    // The map is written out when it gets this full
+    private static final double MAX_LOAD = 0.7;
+
+    // Games replayed on the search pool at a time
+    private static final int BATCH_GAMES = 4096;
+
+    private static final int WIN = 0;
+    private static final int DRAW = 1;
+    private static final int LOSS = 2;
+
+    private final int maxPlies;
+    private final int minGames;
+
+    // the map: open addressing with linear probing, a zero count marks an empty slot
+    private final long[] keys;
+    private final short[] moves;
+    private final int[][] counts;
+    private final int mask;
+    private final int maxSize;
+    private int size = 0;
+
+    private final List<File> runs = new ArrayList<>();
+
+    private long games = 0;
+    private long skipped = 0;
+    private long records = 0;
+
+    /**
+     * @param maxPlies  the number of plies of each game to put in the book
+     * @param minGames  the fewest games a move has to be played in to make it into the book
+     * @param megabytes the memory the counts may use before they are written out to a run file
+     */
+    public BookBuilder(int maxPlies, int minGames, int megabytes) {
+        this.maxPlies = maxPlies;
+        this.minGames = Integer.max(1, minGames);
+
+        int capacity = Integer.highestOneBit((int) Math.min(1L << 30, Math.max(1024L, megabytes * 1024L * 1024L / SLOT_BYTES)));
+        this.keys = new long[capacity];
+        this.moves = new short[capacity];
+        this.counts = new int[3][capacity];
+        this.mask = capacity - 1;
+        this.maxSize = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Count the moves of all of the games in a PGN file.  Games are read a batch at a
+     * time and replayed on the search pool, then counted in the order they were read.
+     *
+     * @param filename the PGN file
+     * @throws IOException if the file can't be read or a run can't be written
+     */
+    public void addGames(final String filename) throws IOException {
+        try (PGN.Reader reader = new PGN.Reader(filename)) {
+            List<PGN.Game> batch = new ArrayList<>(BATCH_GAMES);
+            long read = 0;
+            PGN.Game game;
+            while ((game = reader.read()) != null) {
+                batch.add(game);
+                if (batch.size() == BATCH_GAMES) {
+                    addBatch(batch);
+                    batch.clear();
+                }
+                if (++read % 100_000 == 0) {
+                    System.out.printf("%,d games read, %d run%s written%n",
+                            read, runs.size(), (runs.size() == 1) ? "" : "s");
+                }
+            }
+            addBatch(batch);
+        }
+    }
+
+    /**
+     * Count the moves of one game.  Games without a result are skipped.
+     *
+     * @param game the game
+     * @throws IOException if the map fills up and can't be written to a run file
+     */
+    public void addGame(final PGN.Game game) throws IOException {
+        count(replay(game));
+    }
+
+    private void addBatch(final List<PGN.Game> batch) throws IOException {
+        List<Callable<long[]>> tasks = new ArrayList<>(batch.size());
+        for (PGN.Game game : batch) {
+            tasks.add(() -> replay(game));
+        }
+        try {
+            for (Future<long[]> replayed : LiteExecutors.getSearchPool().invokeAll(tasks)) {
+                count(replayed.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("building the book was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a game replay failed", e.getCause());
+        }
+    }
+
+    /**
+     * Replay a game up to maxPlies or its first move that isn't legal.
+     *
+     * @return the key of each position followed by the move made in it shifted left two
+     * bits and or'ed with the result for the side that made it, or null if the game has no result
+     */
+    private long[] replay(final PGN.Game game) {
+        int whiteResult;
+        switch (game.getResult()) {
+            case "1-0":
+                whiteResult = WIN;
+                break;
+            case "0-1":
+                whiteResult = LOSS;
+                break;
+            case "1/2-1/2":
+                whiteResult = DRAW;
+                break;
+            default:
+                return null;
+        }
+
+        LiteBoard board = PGN.startBoard(game);
+        int plies = Integer.min(maxPlies, game.moves.size());
+        long[] played = new long[plies * 2];
+        int ply = 0;
+        for (; ply < plies; ply++) {
+            Move move = SAN.decode(board, game.moves.get(ply));
+            if (move == null) break;
+
+            int result = (board.turn == Side.White) ? whiteResult : LOSS - whiteResult;
+            played[ply * 2] = PolyglotBook.key(board);
+            played[ply * 2 + 1] = ((long) PolyglotBook.encodeMove(board, move) << 2) | result;
+
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        return (ply == plies) ? played : Arrays.copyOf(played, ply * 2);
+    }
+
+    private void count(final long[] played) throws IOException {
+        if (played == null) {
+            skipped++;
+            return;
+        }
+        games++;
+        for (int i = 0; i < played.length; i += 2) {
+            add(played[i], (int) (played[i + 1] >>> 2), (int) (played[i + 1] & 3));
+        }
+    }
+
+    // Count a move in a position as a win, draw or loss for its side
+    private void add(final long key, final int move, final int result) throws IOException {
+        int slot = slot(key, move);
+        while (true) {
+            int total = counts[WIN][slot] + counts[DRAW][slot] + counts[LOSS][slot];
+            if (total == 0) {
+                keys[slot] = key;
+                moves[slot] = (short) move;
+                counts[result][slot] = 1;
+                records++;
+                if (++size >= maxSize) {
+                    writeRun();
+                }
+                return;
+            }
+            if (keys[slot] == key && (moves[slot] & 0xFFFF) == move) {
+                counts[result][slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int slot(final long key, final int move) {
+        long hash = (key ^ (move * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    // Sort the map's entries by key and move, write them to a new run file and empty the map
+    private void writeRun() throws IOException {
+        if (size == 0) return;
+
+        // pack the filled slots to the front of the arrays and sort them there
+        int n = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (counts[WIN][slot] + counts[DRAW][slot] + counts[LOSS][slot] == 0) continue;
+            if (slot != n) {
+                keys[n] = keys[slot];
+                moves[n] = moves[slot];
+                for (int[] count : counts) {
+                    count[n] = count[slot];
+                    count[slot] = 0;
+                }
+            }
+            n++;
+        }
+        sort(0, n - 1);
+
+        File run = File.createTempFile("book", ".run");
+        run.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < n; i++) {
+                out.writeLong(keys[i]);
+                out.writeShort(moves[i]);
+                out.writeInt(counts[WIN][i]);
+                out.writeInt(counts[DRAW][i]);
+                out.writeInt(counts[LOSS][i]);
+            }
+        }
+        runs.add(run);
+
+        for (int[] count : counts) {
+            Arrays.fill(count, 0, n, 0);
+        }
+        size = 0;
+    }
+
+    // Quicksort the packed entries from low to high by key and then move without boxing them
+    private void sort(int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            long pivotKey = keys[mid];
+            int pivotMove = moves[mid] & 0xFFFF;
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotKey, pivotMove) < 0) i++;
+                while (compare(j, pivotKey, pivotMove) > 0) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            // recurse into the smaller side so the stack stays shallow
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, keys[j - 1], moves[j - 1] & 0xFFFF) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(final int entry, final long key, final int move) {
+        int byKey = Long.compareUnsigned(keys[entry], key);
+        return (byKey != 0) ? byKey : Integer.compare(moves[entry] & 0xFFFF, move);
+    }
+
+    private void swap(final int a, final int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        short move = moves[a];
+        moves[a] = moves[b];
+        moves[b] = move;
+        for (int[] count : counts) {
+            int c = count[a];
+            count[a] = count[b];
+            count[b] = c;
+        }
+    }
+
+    // One run file being merged, positioned on its next record
+    private static class Run implements Comparable<Run> {
+        final DataInputStream in;
+        long key;
+        int move;
+        final int[] counts = new int[3];
+
+        Run(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        // read the next record, returning false at the end of the run
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+                move = in.readShort() & 0xFFFF;
+                counts[WIN] = in.readInt();
+                counts[DRAW] = in.readInt();
+                counts[LOSS] = in.readInt();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            int byKey = Long.compareUnsigned(key, other.key);
+            return (byKey != 0) ? byKey : Integer.compare(move, other.move);
+        }
+    }
+
+    /**
+     * Merge the counts of all of the games added into the book file.
+     *
+     * @param filename the .bin file to write
+     * @return the number of entries written
+     * @throws IOException if a run can't be read or the book can't be written
+     */
+    public long write(final String filename) throws IOException {
+        writeRun();
+        System.out.printf("%,d games (%,d without a result skipped), merging %d run%s of %,d bytes%n",
+                games, skipped, runs.size(), (runs.size() == 1) ? "" : "s", records * RUN_RECORD_BYTES);
+
+        PriorityQueue<Run> merge = new PriorityQueue<>();
+        List<Run> open = new ArrayList<>();
+        long written = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            for (File file : runs) {
+                Run run = new Run(file);
+                open.add(run);
+                if (run.next()) merge.add(run);
+            }
+
+            // the moves of the position being merged and their counts
+            long key = 0;
+            List<int[]> entries = new ArrayList<>();
+            while (!merge.isEmpty()) {
+                Run run = merge.poll();
+                if (!entries.isEmpty() && run.key != key) {
+                    written += writePosition(out, key, entries);
+                    entries.clear();
+                }
+                key = run.key;
+
+                int[] last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+                if (last != null && last[0] == run.move) {
+                    for (int i = 0; i < 3; i++) last[i + 1] += run.counts[i];
+                } else {
+                    entries.add(new int[]{run.move, run.counts[WIN], run.counts[DRAW], run.counts[LOSS]});
+                }
+
+                if (run.next()) merge.add(run);
+            }
+            if (!entries.isEmpty()) {
+                written += writePosition(out, key, entries);
+            }
+        } finally {
+            for (Run run : open) {
+                run.in.close();
+            }
+            for (File file : runs) {
+                file.delete();
+            }
+            runs.clear();
+        }
+
+        System.out.printf("%,d book entries written to %s%n", written, filename);
+        return written;
+    }
+
+    // Write the book entries of one position's moves, returning how many were written
+    private int writePosition(final DataOutputStream out, final long key, final List<int[]> entries) throws IOException {
+        long[] weights = new long[entries.size()];
+        long maxWeight = 0;
+        for (int i = 0; i < weights.length; i++) {
+            int[] entry = entries.get(i);
+            long played = (long) entry[1] + entry[2] + entry[3];
+            weights[i] = (played < minGames) ? 0 : 2L * entry[1] + entry[2];
+            maxWeight = Math.max(maxWeight, weights[i]);
+        }
+
+        int written = 0;
+        for (int i = 0; i < weights.length; i++) {
+            long weight = (maxWeight > 0xFFFF) ? weights[i] * 0xFFFF / maxWeight : weights[i];
+            if (weight == 0) continue;
+            out.writeLong(key);
+            out.writeShort(entries.get(i)[0]);
+            out.writeShort((int) weight);
+            out.writeInt(0);
+            written++;
+        }
+        return written;
+    }
+}
@@ -2,6 +2,7 @@ import java.util.Arrays;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The CachedMoveMap holds a map of board states to Moves.
@@ -22,69 +23,39 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
     private ConcurrentMap<String, MoveStat> moveRisk;
 
     // Some useful metrics we keep track of like cache hits and cache misses.
-    // Also a lock object to synchronize access to the values
-    private final Object statisticsLock = new Object();
-    long numMovesExamined;
-    long numMovesOffered;
-    long numMovesCached;
-    long maxMovesCached;
-    long numMovesUpdated;
-    long numExaminationsSaved;
-    long numCacheHits;
-    long numCacheMisses;
-    long numMovesTested;
-    long numMovesImproved;
+    // Every search thread bumps these on every lookup and add, so each is a
+    // striped counter that is only added up when the statistics are displayed.
+    final LongAdder numMovesExamined;
+    final LongAdder numMovesOffered;
+    final LongAdder numMovesCached;
+    final LongAdder numMovesUpdated;
+    final LongAdder numExaminationsSaved;
+    final LongAdder numCacheHits;
+    final LongAdder numCacheMisses;
+    final LongAdder numMovesTested;
+    final LongAdder numMovesImproved;
 
     public CachedMoveMap() {
-        synchronized (statisticsLock) {
-            numMovesExamined = 0;
-            numMovesOffered = 0;
-            numMovesCached = 0;
-            maxMovesCached = 0;
-            numMovesUpdated = 0;
-            numExaminationsSaved = 0;
-            numCacheHits = 0;
-            numCacheMisses = 0;
-            numMovesTested =  0;
-            numMovesImproved = 0;
-            moveRisk = new ConcurrentHashMap<>();
-        }
-    }
-
-    private void addNumMovesExamined(final int num) {
-        synchronized (statisticsLock) {
-            numMovesExamined += num;
-        }
-    }
-
-    private long getNumMovesExamined() {
-        synchronized (statisticsLock) {
-            return numMovesExamined;
-        }
-    }
-
-    private void addNumMovesOffered(final int num) {
-        synchronized (statisticsLock) {
-            numMovesOffered += num;
-        }
+        numMovesExamined = new LongAdder();
+        numMovesOffered = new LongAdder();
+        numMovesCached = new LongAdder();
+        numMovesUpdated = new LongAdder();
+        numExaminationsSaved = new LongAdder();
+        numCacheHits = new LongAdder();
+        numCacheMisses = new LongAdder();
+        numMovesTested = new LongAdder();
+        numMovesImproved = new LongAdder();
+        moveRisk = new ConcurrentHashMap<>();
     }
 
-    private long getNumMovesOffered() {
-        synchronized (statisticsLock) {
-            return numMovesOffered;
-        }
-    }
-
-    private void addNumMovesCached(final int num) {
-        synchronized (statisticsLock) {
-            numMovesCached += num;
-        }
-    }
-
-    private long getNumMovesCached() {
-        synchronized (statisticsLock) {
-            return numMovesCached;
-        }
+    /**
+     * Get the most moves that have been held in the cache at one time.  Moves are
+     * never taken back out of the cache so this is the number that have been added.
+     *
+     * @return the high-water mark of the number of cached moves
+     */
+    public long getMaxMovesCached() {
+        return numMovesCached.sum();
     }
 
 
@@ -137,10 +108,8 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
             // These moves were examined so add them to our total count
             // even if we ultimately don't keep this move as the 'best'.
             // The moves were still examined and thus should be counted.
-            synchronized (statisticsLock) {
-                numMovesExamined += movesExamined;
-                numMovesOffered += 1;
-            }
+            numMovesExamined.add(movesExamined);
+            numMovesOffered.increment();
 
             // add the board, max/min, and move if all are new:
             if (!containsKey(key)) {
@@ -151,12 +120,7 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
                 best.move.setValue(best.value);
                 best.movesExamined = movesExamined;
                 get(key).put(maximize, best);
-                synchronized (statisticsLock) {
-                    numMovesCached++;
-                    if (numMovesCached > maxMovesCached) {
-                        maxMovesCached = numMovesCached;
-                    }
-                }
+                numMovesCached.increment();
                 return;
             }
 
@@ -171,12 +135,7 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
                 best.move.setValue(best.value);
                 best.movesExamined = movesExamined;
                 get(key).put(maximize, best);
-                synchronized (statisticsLock) {
-                    this.numMovesCached++;
-                    if (numMovesCached > maxMovesCached) {
-                        maxMovesCached = numMovesCached;
-                    }
-                }
+                numMovesCached.increment();
                 return;
             }
 
@@ -193,9 +152,7 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
                 best.move.setValue(best.value);
                 best.movesExamined = movesExamined + alreadyExamined;
                 get(key).put(maximize, best);
-                synchronized (statisticsLock) {
-                    numMovesUpdated++;
-                }
+                numMovesUpdated.increment();
             }
         } catch (NullPointerException e) {
             e.printStackTrace();
@@ -221,21 +178,34 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
         // See if we have this board state
         if (containsKey(key) && get(key).containsKey(maximize)) {
             BestMove bm = get(key).get(maximize);
-            addNumMovesExamined(bm.movesExamined);
-            synchronized (statisticsLock) {
-                numExaminationsSaved += bm.movesExamined;
-                numCacheHits++;
-            }
+            numMovesExamined.add(bm.movesExamined);
+            numExaminationsSaved.add(bm.movesExamined);
+            numCacheHits.increment();
             return bm;
         }
 
-        synchronized (statisticsLock) {
-            numCacheMisses++;
-        }
+        numCacheMisses.increment();
 
         return null;
     }
 
+    /**
+     * Get the move cached for a board setup and maximize/minimize goal without
+     * counting it as a cache lookup by the search.
+     *
+     * @param b        an array of 64 bytes representing a board piece arrangement (state)
+     * @param maximize true if we are the maximizing side (white) or false if we are not (black side)
+     * @return the best move seen so far for this board state or null if there isn't one
+     */
+    public BestMove peekBestMove(byte[] b, boolean maximize) {
+        if (!Main.useCache) {
+            return null;
+        }
+
+        ConcurrentHashMap<Boolean, BestMove> bestMap = get(getBoardKey(b));
+        return (bestMap == null) ? null : bestMap.get(maximize);
+    }
+
     public void deletePieceTaken(byte[] b, int index) {
 
         if (!Main.useCache) {
@@ -297,17 +267,13 @@ public class CachedMoveMap extends ConcurrentHashMap<String, ConcurrentHashMap<B
     public void increaseMoveUsedCount(byte[] b) {
         String key = getBoardKey(b);
         moveRisk.computeIfAbsent(key, (s) -> new MoveStat()).numRetries++;
-        synchronized (statisticsLock) {
-            numMovesTested++;
-        }
+        numMovesTested.increment();
     }
 
     public void increaseMoveImprovedCount(byte[] b) {
         String key = getBoardKey(b);
         moveRisk.computeIfAbsent(key, (s) -> new MoveStat()).numBetter++;
-        synchronized (statisticsLock) {
-            numMovesImproved++;
-        }
+        numMovesImproved.increment();
     }
 
     private class MoveStat {
@@ -16,6 +16,8 @@ public class ChessConfig {
     public int     maxThreads;          // maximum number of threads in thread pool
     public int     maxSeconds;          // maximum number of seconds AI player is allowed per move
     public int     maxDepth;            // maximum ply depth AI searches ahead
+    public String  weights;             // evaluation weights file to load, empty for the built-in weights
+    public String  nnue;                // NNUE network file to evaluate with, empty for none
 
     // Interface Settings:
     public boolean showTargetPaths;     // color the board to show opponents possible moves if true
@@ -73,6 +75,8 @@ public class ChessConfig {
         maxThreads = Integer.valueOf(props.getProperty("maxThreads", "100"));
         maxDepth = Integer.valueOf(props.getProperty("aiPlyDepth", "6"));
         maxSeconds = Integer.valueOf(props.getProperty("maxAISeconds", "30"));
+        weights = props.getProperty("weights", "").trim();
+        nnue = props.getProperty("nnue", "").trim();
 
         showTargetPaths = Boolean.valueOf(props.getProperty("showTargets", "true"));
         showVictimPaths = Boolean.valueOf(props.getProperty("showVictims", "true"));
@@ -155,6 +159,8 @@ public class ChessConfig {
                     + " maxThreads:         maximum number of threads for AI to run simultaneously\n"
                     + " aiPlyDepth:         maximum number of moves for AI to look ahead\n"
                     + " maxAISeconds:       maximum number of seconds to allow AI to think (0 for no time limit)\n"
+                    + " weights:            evaluation weights file to load (optional, see -weights)\n"
+                    + " nnue:               NNUE network file to evaluate with (optional, see -nnue)\n"
                     + " \n"
                     + " UI Settings:\n"
                     + " showVictims:        color the board to show current players possible moves if true\n"
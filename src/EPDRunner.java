@@ -0,0 +1,305 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * The EPDRunner class solves a suite of EPD test positions without the console
+ * display and writes a JSON report of how it did.
+ * <p>
+ * Each line of the suite is the first four fields of a FEN position (the move
+ * counters may follow) and then opcodes ending in semicolons.  The bm (best move)
+ * and am (avoid move) opcodes say what the right answer is and id names the
+ * position; the rest are ignored.  A position is solved when the move found is one
+ * of its best moves and none of its moves to avoid.
+ * <p>
+ * Several positions are searched at once, each by its own LiteMinimax on a search
+ * pool of its own with the number of threads each position is given, so a position
+ * that splits its search wide doesn't take threads from the others.  Each search is
+ * limited by time, by depth or by the number of moves examined.
+ */
+public class EPDRunner {
+
+    public enum Mode {
+        TIME("time"),
+        DEPTH("depth"),
+        NODES("nodes");
+
+        public final String name;
+
+        Mode(String name) {
+            this.name = name;
+        }
+    }
+
+    // One test position and what the search made of it
+    static class Position {
+        String line;
+        String fen;
+        String id = "";
+        List<String> bestMoves = new ArrayList<>();
+        List<String> avoidMoves = new ArrayList<>();
+
+        String found = null;
+        boolean solved = false;
+        String error = null;
+        int value;
+        long nodes;
+        long millis;
+    }
+
+    private final Mode mode;
+    private final long limit;
+    private final int depth;
+    private final int parallel;
+    private final int threadsPerPosition;
+
+    /**
+     * @param mode               what limits each search
+     * @param limit              the milliseconds, depth or number of moves examined each search gets
+     * @param depth              the ply depth of time and node limited searches
+     * @param parallel           the number of positions searched at once
+     * @param threadsPerPosition the number of search threads each position is given
+     */
+    public EPDRunner(Mode mode, long limit, int depth, int parallel, int threadsPerPosition) {
+        this.mode = mode;
+        this.limit = limit;
+        this.depth = (mode == Mode.DEPTH) ? (int) limit : depth;
+        this.parallel = Integer.max(1, parallel);
+        this.threadsPerPosition = Integer.max(1, threadsPerPosition);
+    }
+
+    /**
+     * Solve the positions in a suite and write the report.
+     *
+     * @param suiteFile  the EPD file
+     * @param reportFile the file to write the JSON report to
+     * @return the number of positions solved
+     * @throws IOException if the suite can't be read or the report can't be written
+     */
+    public int run(final String suiteFile, final String reportFile) throws IOException {
+        List<Position> positions = read(suiteFile);
+
+        System.out.printf("%s: %d positions, %s %,d, %d at once with %d thread%s each%n%n",
+                suiteFile, positions.size(), mode.name, limit, parallel, threadsPerPosition,
+                (threadsPerPosition == 1) ? "" : "s");
+
+        long start = System.nanoTime();
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService runners = Executors.newFixedThreadPool(parallel);
+        try {
+            List<Future<?>> results = new ArrayList<>(positions.size());
+            for (Position position : positions) {
+                results.add(runners.submit(() -> {
+                    solve(position);
+                    printResult(position, done.incrementAndGet(), positions.size());
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("an EPD position search failed", e.getCause());
+        } finally {
+            runners.shutdownNow();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        int solved = (int) positions.stream().filter(p -> p.solved).count();
+        System.out.printf("%nSolved %d of %d in %.1f seconds%n", solved, positions.size(), millis / 1000.0);
+
+        writeReport(suiteFile, reportFile, positions, solved, millis);
+        System.out.println("Report written to " + reportFile);
+        return solved;
+    }
+
+    // Read the positions of a suite, skipping blank lines and comments
+    static List<Position> read(final String filename) throws IOException {
+        List<Position> positions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                Position position = parse(line);
+                if (position != null) {
+                    positions.add(position);
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Split an EPD line into its position and opcodes.
+     *
+     * @param line the EPD line
+     * @return the position or null if the line doesn't have the four FEN fields
+     */
+    static Position parse(final String line) {
+        String[] words = line.split("\\s+");
+        if (words.length < 4) return null;
+
+        Position position = new Position();
+        position.line = line;
+        position.fen = String.join(" ", Arrays.copyOfRange(words, 0, 4));
+
+        // skip the move counters if this is a whole FEN
+        int next = 4;
+        while (next < words.length && next < 6 && words[next].matches("\\d+")) {
+            next++;
+        }
+
+        String opcodes = String.join(" ", Arrays.copyOfRange(words, next, words.length));
+        for (String opcode : opcodes.split(";")) {
+            String[] operands = opcode.trim().split("\\s+");
+            List<String> args = Arrays.asList(operands).subList(1, operands.length);
+            switch (operands[0]) {
+                case "bm":
+                    position.bestMoves.addAll(args);
+                    break;
+                case "am":
+                    position.avoidMoves.addAll(args);
+                    break;
+                case "id":
+                    position.id = String.join(" ", args).replace("\"", "");
+                    break;
+                default:
+                    break;
+            }
+        }
+        return position;
+    }
+
+    // Search one position on a search pool of its own and score the move found
+    private void solve(final Position position) {
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, position.fen);
+
+        List<Move> best = new ArrayList<>();
+        List<Move> avoid = new ArrayList<>();
+        boolean bestFound = toMoves(board, position.bestMoves, best);
+        boolean avoidFound = toMoves(board, position.avoidMoves, avoid);
+        if (!bestFound || !avoidFound) {
+            position.error = "not a legal move in the position";
+        }
+        if (position.bestMoves.isEmpty() && position.avoidMoves.isEmpty()) {
+            position.error = "no bm or am opcode";
+        }
+
+        LiteMinimax agent = new LiteMinimax("", depth, 0);
+        agent.setBook(null);
+        if (mode == Mode.TIME) agent.setTimeLimit(limit);
+        if (mode == Mode.NODES) agent.setNodeLimit(limit);
+
+        Move move;
+        ForkJoinPool pool = new ForkJoinPool(threadsPerPosition);
+        try {
+            agent.setSearchPool(pool);
+            long start = System.nanoTime();
+            move = agent.bestMove(board, false);
+            position.millis = (System.nanoTime() - start) / 1_000_000L;
+            position.nodes = agent.getNumMovesExamined();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (move == null) {
+            position.error = "no move found";
+            return;
+        }
+        position.value = agent.best.value;
+        position.found = SAN.encode(board, move);
+        position.solved = (position.error == null)
+                && (best.isEmpty() || best.contains(move))
+                && !avoid.contains(move);
+    }
+
+    // Look up the moves given in SAN, returning false if any of them isn't legal
+    private static boolean toMoves(final LiteBoard board, final List<String> sans, final List<Move> moves) {
+        boolean allFound = true;
+        for (String san : sans) {
+            Move move = SAN.decode(board, san);
+            if (move == null) {
+                allFound = false;
+            } else {
+                moves.add(move);
+            }
+        }
+        return allFound;
+    }
+
+    private static void printResult(final Position position, int done, int total) {
+        StringBuilder expected = new StringBuilder();
+        if (!position.bestMoves.isEmpty()) expected.append("bm ").append(String.join(" ", position.bestMoves));
+        if (!position.avoidMoves.isEmpty()) expected.append(" am ").append(String.join(" ", position.avoidMoves));
+
+        System.out.printf("%4d/%d  %-7s %-8s %-20s %8.1fs  %s%n",
+                done, total,
+                position.solved ? "solved" : "missed",
+                (position.found == null) ? "-" : position.found,
+                expected.toString().trim(),
+                position.millis / 1000.0,
+                (position.error != null) ? position.error : position.id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeReport(final String suiteFile, final String reportFile, final List<Position> positions,
+                             int solved, long millis) throws IOException {
+        JSONArray results = new JSONArray();
+        for (Position position : positions) {
+            JSONObject result = new JSONObject();
+            result.put("id", position.id);
+            result.put("epd", position.line);
+            result.put("bm", toJSON(position.bestMoves));
+            result.put("am", toJSON(position.avoidMoves));
+            result.put("move", position.found);
+            result.put("solved", position.solved);
+            result.put("value", position.value);
+            result.put("nodes", position.nodes);
+            result.put("millis", position.millis);
+            if (position.error != null) {
+                result.put("error", position.error);
+            }
+            results.add(result);
+        }
+
+        JSONObject report = new JSONObject();
+        report.put("suite", suiteFile);
+        report.put("mode", mode.name);
+        report.put("limit", limit);
+        report.put("depth", depth);
+        report.put("parallel", parallel);
+        report.put("threadsPerPosition", threadsPerPosition);
+        report.put("positions", positions.size());
+        report.put("solved", solved);
+        report.put("millis", millis);
+        report.put("results", results);
+
+        try (Writer writer = new FileWriter(reportFile)) {
+            report.writeJSONString(writer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONArray toJSON(final List<String> strings) {
+        JSONArray array = new JSONArray();
+        array.addAll(strings);
+        return array;
+    }
+}
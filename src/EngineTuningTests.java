@@ -1,4 +1,7 @@
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class EngineTuningTests {
 
@@ -308,13 +311,254 @@ public class EngineTuningTests {
         }
     }
 
-    public static void runTest(LiteBoard board, String fen) {
+    // The thread counts the split-point search speedup is measured at
+    static int[] speedupThreads = {1, 2, 4, 8, 16, 32};
+
+    /**
+     * Measure how the split-point search scales with the number of worker threads.
+     * Every position in a fixed set is searched to the same depth with no time limit
+     * once per thread count and the total time is compared with the single thread time.
+     * Each thread count gets a pool of exactly that many workers, bypassing the limit
+     * of one worker per processor the shared pool has, so the whole curve is measured
+     * on any machine.  Rows with more threads than processors are marked oversubscribed.
+     *
+     * @param depth the ply depth to search each position to
+     */
+    static public void runSpeedupCurve(int depth) {
+        String[] positions = new String[suite1.length + 5];
+        System.arraycopy(suite1, 0, positions, 0, suite1.length);
+        System.arraycopy(kaufmanTest, 0, positions, suite1.length, 5);
+
+        System.out.printf("Split-point search speedup, %d positions at ply depth %d%n%n", positions.length, depth);
+        System.out.printf("%8s %12s %16s %12s %10s%n", "threads", "seconds", "moves examined", "per second", "speedup");
+
+        // one untimed pass first so the single thread row isn't the one paying for the JIT
+        speedupPass(positions, depth, 1);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        double baseTime = 0.0;
+        for (int threads : speedupThreads) {
+            long[] result = speedupPass(positions, depth, threads);
+
+            double seconds = result[0] / 1_000_000_000.0;
+            if (baseTime == 0.0) {
+                baseTime = seconds;
+            }
+            System.out.printf("%8d %12.3f %,16d %,12d %10.2f%s%n",
+                    threads, seconds, result[1], (long) (result[1] / seconds), baseTime / seconds,
+                    (threads > processors) ? String.format("  (oversubscribed, %d processors)", processors) : "");
+        }
+    }
+
+    /**
+     * Search every position on a pool of its own with some number of workers.
+     *
+     * @return the nanoseconds the searches took and the moves they examined
+     */
+    private static long[] speedupPass(final String[] positions, int depth, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long totalTime = 0L;
+        long totalMoves = 0L;
+
+        for (String fen : positions) {
+            LiteBoard board = new LiteBoard();
+            setupBoard(board, fen);
+
+            LiteMinimax agent = new LiteMinimax("", depth, 0);
+            agent.setSearchPool(pool);
+            agent.setBook(null);
+
+            long start = System.nanoTime();
+            agent.bestMove(board, false);
+            totalTime += System.nanoTime() - start;
+            totalMoves += agent.getNumMovesExamined();
+
+            try {
+                agent.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        pool.shutdown();
+        return new long[]{totalTime, totalMoves};
+    }
+
+    // The ply depth every bench position is searched to.  Changing it changes the signature.
+    static int benchDepth = 3;
+
+    /**
+     * Search a fixed set of positions to a fixed depth on one thread and print the total
+     * number of moves examined with the time it took.  The search is deterministic on one
+     * thread so the total is a signature of how the engine behaves: a change that alters
+     * it changed the search or the evaluation, while one that only changes the moves
+     * examined per second changed how fast it runs.
+     * <p>
+     * The searches run without the search pool at all (Main.useThreads is off while the
+     * bench runs) since even a one worker pool lets the waiting thread run a queued root
+     * move itself, and then two threads share the move cache.
+     *
+     * @return the total number of moves examined
+     */
+    static public long runBench() {
+        String[] positions = new String[suite1.length + kaufmanTest.length];
+        System.arraycopy(suite1, 0, positions, 0, suite1.length);
+        System.arraycopy(kaufmanTest, 0, positions, suite1.length, kaufmanTest.length);
+
+        boolean useThreads = Main.useThreads;
+        Main.useThreads = false;
+
+        long totalTime = 0L;
+        long totalMoves = 0L;
+        for (int i = 0; i < positions.length; i++) {
+            LiteBoard board = new LiteBoard();
+            setupBoard(board, positions[i]);
+
+            LiteMinimax agent = new LiteMinimax("", benchDepth, 0);
+            agent.setBook(null);
+
+            long start = System.nanoTime();
+            agent.bestMove(board, false);
+            long time = System.nanoTime() - start;
+            long moves = agent.getNumMovesExamined();
+            totalTime += time;
+            totalMoves += moves;
+
+            System.out.printf("Position %2d/%d: %,12d moves %8.3f seconds%n",
+                    i + 1, positions.length, moves, time / 1_000_000_000.0);
+
+            try {
+                agent.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Main.useThreads = useThreads;
+
+        System.out.println();
+        System.out.printf("Depth:          %,12d%n", benchDepth);
+        System.out.printf("Total time ms:  %,12d%n", totalTime / 1_000_000L);
+        System.out.printf("Nodes searched: %,12d%n", totalMoves);
+        System.out.printf("Nodes/second:   %,12d%n", totalMoves * 1_000_000_000L / Long.max(totalTime, 1L));
+        return totalMoves;
+    }
+
+    // How long the evaluation benchmark makes moves and evaluates for with each evaluator
+    static long evalBenchNanos = 3_000_000_000L;
+
+    /**
+     * Measure the speed of the LiteEval terms against an NNUE network.  For each
+     * evaluator every move of a fixed set of positions is made on a copy of the board
+     * and the result evaluated, over and over for a few seconds, then every position
+     * is searched to the same depth on one thread.  The network's accumulators are
+     * updated as the moves are made so both numbers include that cost.  The network
+     * is run on the scalar kernel and, if the jdk.incubator.vector module is present,
+     * on the Vector API kernel.
+     *
+     * @param depth the ply depth to search each position to
+     * @param net   the network to compare with LiteEval
+     */
+    static public void runEvalBenchmark(int depth, LiteNNUE net) {
+        String[] positions = new String[suite1.length + 5];
+        System.arraycopy(suite1, 0, positions, 0, suite1.length);
+        System.arraycopy(kaufmanTest, 0, positions, suite1.length, 5);
+
+        LiteNNUE original = LiteNNUE.getNetwork();
+        LiteNNUEKernel originalKernel = LiteNNUE.getKernel();
+        LiteExecutors.setMaxThreads(1);
+
+        // LiteEval, then the network on each kernel there is
+        List<LiteNNUEKernel> kernels = new ArrayList<>();
+        kernels.add(null);
+        kernels.add(new LiteNNUEKernel.Scalar());
+        LiteNNUEKernel vector = LiteNNUEKernel.loadVector();
+        if (vector != null) kernels.add(vector);
+
+        System.out.printf("Evaluation speed, %d positions, network %d x 2 -> %d -> %d -> 1, search at ply depth %d%n%n",
+                positions.length, net.hidden, net.size1, net.size2, depth);
+        System.out.printf("%-22s %18s %18s%n", "evaluator", "make+eval/second", "search/second");
+
+        for (LiteNNUEKernel kernel : kernels) {
+            LiteNNUE.use((kernel == null) ? null : net);
+            if (kernel != null) LiteNNUE.setKernel(kernel);
+
+            LiteBoard[] boards = new LiteBoard[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                boards[i] = new LiteBoard();
+                setupBoard(boards[i], positions[i]);
+                boards[i].ensureMoves1();
+            }
+
+            // once through to warm up, then for as long as the benchmark runs
+            makeAndEvaluate(boards);
+            long evals = 0L;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                evals += makeAndEvaluate(boards);
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < evalBenchNanos);
+
+            long searchTime = 0L;
+            long searchMoves = 0L;
+            for (String fen : positions) {
+                LiteBoard board = new LiteBoard();
+                setupBoard(board, fen);
+
+                LiteMinimax agent = new LiteMinimax("", depth, 0);
+
+                long moveStart = System.nanoTime();
+                agent.bestMove(board, false);
+                searchTime += System.nanoTime() - moveStart;
+                searchMoves += agent.getNumMovesExamined();
+
+                try {
+                    agent.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            System.out.printf("%-22s %,18d %,18d%n", (kernel == null) ? "LiteEval" : "LiteNNUE " + kernel.name(),
+                    evals * 1_000_000_000L / elapsed, searchMoves * 1_000_000_000L / Long.max(searchTime, 1L));
+        }
+        if (vector == null) {
+            System.out.println("(build src-vector and run with --add-modules jdk.incubator.vector to time the Vector API kernel too)");
+        }
+
+        LiteNNUE.setKernel(originalKernel);
+        LiteNNUE.use(original);
+    }
+
+    // Make every move of every board on a copy and evaluate it; returns how many were evaluated
+    private static long makeAndEvaluate(LiteBoard[] boards) {
+        long count = 0L;
+        int sum = 0;
+        for (LiteBoard board : boards) {
+            for (int i = 0; i < board.numMoves1; i++) {
+                LiteBoard next = new LiteBoard(board, false);
+                next.executeMove(board.moves1[i]);
+                next.advanceTurn();
+                sum += LiteEval.evaluate(next);
+                count++;
+            }
+        }
+        // use the sum so the evaluations can't be optimized away
+        return (sum == Integer.MIN_VALUE) ? count + 1 : count;
+    }
+
+    // Set up a board from a test position and generate the moves for the side to move
+    static void setupBoard(LiteBoard board, String fen) {
         FEN.decode(board, fen);
-//        LiteBoard.dumpBoard(board);
 
         board.turn = (board.turn + 1) % 2;
         board.advanceTurn();
         board.turns = board.turn;
+    }
+
+    public static void runTest(LiteBoard board, String fen) {
+        setupBoard(board, fen);
+//        LiteBoard.dumpBoard(board);
 
         int numPawns = 0;
         for (byte p : board.board) {
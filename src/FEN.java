@@ -72,11 +72,53 @@ public class FEN {
             }
         }
 
-        c = in.charAt(pos++);
-        if (c == ' ') c = in.charAt(pos++);
+        String[] fields = in.substring(pos).trim().split("\\s+");
 
-        if (c == 'w') board.turn = Side.White;
-        else if (c == 'b') board.turn = Side.Black;
+        if (fields.length > 0 && fields[0].equals("w")) board.turn = Side.White;
+        else if (fields.length > 0 && fields[0].equals("b")) board.turn = Side.Black;
+
+        // Pawns still on their starting row can double step
+        for (int col = 0; col < 8; col++) {
+            setMoved(board, col + 1 * 8, LiteBoard.Pawn, false);
+            setMoved(board, col + 6 * 8, LiteBoard.Pawn, false);
+        }
+
+        // The kings and rooks that can still castle haven't moved
+        if (fields.length > 1) {
+            String castling = fields[1];
+            if (castling.indexOf('K') >= 0) setCastle(board, 7, 7);
+            if (castling.indexOf('Q') >= 0) setCastle(board, 7, 0);
+            if (castling.indexOf('k') >= 0) setCastle(board, 0, 7);
+            if (castling.indexOf('q') >= 0) setCastle(board, 0, 0);
+        }
+
+        // The board only knows en passant from the last move being a pawn's double step
+        board.lastMove = new Move(8, 8, 8, 8, 0);
+        if (fields.length > 2 && fields[2].length() == 2) {
+            int col = fields[2].charAt(0) - 'a';
+            int rank = fields[2].charAt(1) - '0';
+            if (col >= 0 && col <= 7 && (rank == 3 || rank == 6)) {
+                int passed = 8 - rank;
+                int forward = (rank == 3) ? -1 : 1;
+                board.lastMove = new Move(col, passed - forward, col, passed + forward, 0);
+            }
+        }
+
+        board.refreshScores();
+    }
+
+    // mark the piece at ndx as not having moved if it is of the given type
+    private static void setMoved(LiteBoard board, int ndx, int type, boolean moved) {
+        byte b = board.board[ndx];
+        if (LiteUtil.getType(b) == type) {
+            board.board[ndx] = LiteUtil.makeSpot(type, LiteUtil.getSide(b), moved, false);
+        }
+    }
+
+    // mark the king on the given row and the rook in the given corner as not having moved
+    private static void setCastle(LiteBoard board, int row, int rookCol) {
+        setMoved(board, 4 + row * 8, LiteBoard.King, false);
+        setMoved(board, rookCol + row * 8, LiteBoard.Rook, false);
     }
 
     public static boolean read(LiteBoard board, String filename) {
@@ -140,15 +182,24 @@ public class FEN {
 
         placement += (board.turn == Side.White) ? " w " : " b ";
 
-        String castleWht = (castleQ(board, 7) ? "Q" : "") + (castleK(board, 7) ? "K" : "");
-        String castleBlk = (castleQ(board, 0) ? "q" : "") + (castleK(board, 0) ? "k" : "");
+        String castleWht = (castleK(board, 7) ? "K" : "") + (castleQ(board, 7) ? "Q" : "");
+        String castleBlk = (castleK(board, 0) ? "k" : "") + (castleQ(board, 0) ? "q" : "");
 
         if (castleWht.isEmpty() && castleBlk.isEmpty())
             placement += "-";
         else
             placement += castleWht + castleBlk;
 
-        placement += " - 0 0";
+        // the spot a pawn that just double stepped passed over
+        Move last = board.lastMove;
+        if (last.getTo() < LiteBoard.BOARD_SIZE && board.getType(last.getTo()) == LiteBoard.Pawn
+                && Math.abs(last.getFromRow() - last.getToRow()) == 2) {
+            placement += String.format(" %c%d", 'a' + last.getToCol(), 8 - (last.getFromRow() + last.getToRow()) / 2);
+        } else {
+            placement += " -";
+        }
+
+        placement += " 0 " + Integer.max(1, (board.turns + 1) / 2);
 
         return placement;
     }
@@ -171,9 +222,6 @@ public class FEN {
 
     private static boolean castleQ(LiteBoard board, int row) {
         byte rQ = board.board[0 + row * 8];
-        byte nQ = board.board[1 + row * 8];
-        byte bQ = board.board[2 + row * 8];
-        byte qQ = board.board[3 + row * 8];
 
         if (LiteUtil.getType(rQ) != LiteBoard.Rook) return false;
         if (LiteUtil.hasMoved(rQ)) return false;
@@ -182,17 +230,12 @@ public class FEN {
 
         if (LiteUtil.getType(k) != LiteBoard.King) return false;
         if (LiteUtil.hasMoved(k)) return false;
-        if (LiteUtil.getType(nQ) != LiteBoard.Empty) return false;
-        if (LiteUtil.getType(bQ) != LiteBoard.Empty) return false;
-        if (LiteUtil.getType(qQ) != LiteBoard.Empty) return false;
 
         return true;
     }
 
     private static boolean castleK(LiteBoard board, int row) {
         byte rK = board.board[7 + row * 8];
-        byte nK = board.board[6 + row * 8];
-        byte bK = board.board[5 + row * 8];
 
         if (LiteUtil.getType(rK) != LiteBoard.Rook) return false;
         if (LiteUtil.hasMoved(rK)) return false;
@@ -201,8 +244,6 @@ public class FEN {
 
         if (LiteUtil.getType(k) != LiteBoard.King) return false;
         if (LiteUtil.hasMoved(k)) return false;
-        if (LiteUtil.getType(nK) != LiteBoard.Empty) return false;
-        if (LiteUtil.getType(bK) != LiteBoard.Empty) return false;
 
         return true;
     }
@@ -0,0 +1,351 @@
+/**
+ * The LiteAttacks class works out which spots each piece on a board can reach without
+ * checking whether the move would leave its own king in check.  These pseudo-legal
+ * reaches are cheap to get straight from the board array so the evaluation can score
+ * mobility and king safety from them without needing either side's full legal move
+ * list, and both come out of the same pass over the pieces.
+ * <p>
+ * Each reach is kept as a 64 bit mask with bit n set for board index n (0 is a8).
+ */
+public class LiteAttacks {
+
+    // precomputed reaches for the pieces whose moves don't depend on what is in the way
+    private static final long[] knightReach = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] kingReach = new long[LiteBoard.BOARD_SIZE];
+
+    private static final int[] knightDx = {-1, 1, -1, 1, -2, 2, -2, 2};
+    private static final int[] knightDy = {-2, -2, 2, 2, -1, -1, 1, 1};
+    private static final int[] kingDx = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int[] kingDy = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    private static final int[] rookDx = {1, -1, 0, 0};
+    private static final int[] rookDy = {0, 0, 1, -1};
+    private static final int[] bishopDx = {1, 1, -1, -1};
+    private static final int[] bishopDy = {1, -1, 1, -1};
+
+    static {
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            int col = ndx % 8;
+            int row = ndx / 8;
+            for (int i = 0; i < 8; i++) {
+                if (isValidSpot(col + knightDx[i], row + knightDy[i]))
+                    knightReach[ndx] |= 1L << ((col + knightDx[i]) + (row + knightDy[i]) * 8);
+                if (isValidSpot(col + kingDx[i], row + kingDy[i]))
+                    kingReach[ndx] |= 1L << ((col + kingDx[i]) + (row + kingDy[i]) * 8);
+            }
+        }
+    }
+
+    private static boolean isValidSpot(final int col, final int row) {
+        return (col >= 0) && (col <= 7) && (row >= 0) && (row <= 7);
+    }
+
+    // King safety, in centipawns.  Own pawns in front of the king shelter it, files next to
+    // it with no pawns of its own give the other side's rooks and queens a way in, and each
+    // piece reaching into the spots around the king adds to the danger by how many of them
+    // it reaches.  The danger grows faster than the number of attackers since one piece
+    // alone rarely gets anywhere.  The shelter terms and how much the attacks count for
+    // are weights in LiteEval: shield1 for an own pawn right in front of the king, shield2
+    // for one two rows in front, semiOpen for no own pawn on a file next to the king,
+    // openFile for no pawn of theirs either, and kingAttack as a percentage.
+    private static final int[] zoneWeights = {0, 0, 10, 10, 15, 25, 0};
+    private static final int[] attackerScale = {0, 0, 50, 75, 88, 94, 97, 99};
+
+    private static final long[] fileMask = new long[8];
+
+    // The attack danger, in zone weight units after the attacker scale, that the bound on
+    // king safety for lazy evaluation allows for: a queen and a rook each reaching two
+    // spots next to the king, say
+    static final int ATTACK_SPREAD = 100;
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            for (int row = 0; row < 8; row++) {
+                fileMask[col] |= 1L << (col + row * 8);
+            }
+        }
+    }
+
+    /**
+     * Look at the reach of every piece on the board once and return both the difference
+     * in the number of pseudo-legal moves of the two sides and the difference in how safe
+     * their kings are.  The two are returned packed in one long so nothing is allocated;
+     * use mobility() and kingSafety() to get them back out.
+     *
+     * @param board the board to scan
+     * @return the packed White minus Black mobility and king safety
+     */
+    public static long scan(final LiteBoard board) {
+        final byte[] spots = board.board;
+
+        long white = 0L;
+        long black = 0L;
+        long whitePawns = 0L;
+        long blackPawns = 0L;
+        int whiteKing = -1;
+        int blackKing = -1;
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = spots[ndx];
+            if (LiteUtil.isEmpty(b)) continue;
+            int type = LiteUtil.getType(b);
+            if (LiteUtil.getSide(b) == Side.White) {
+                white |= 1L << ndx;
+                if (type == LiteBoard.Pawn) whitePawns |= 1L << ndx;
+                if (type == LiteBoard.King) whiteKing = ndx;
+            } else {
+                black |= 1L << ndx;
+                if (type == LiteBoard.Pawn) blackPawns |= 1L << ndx;
+                if (type == LiteBoard.King) blackKing = ndx;
+            }
+        }
+        final long occupied = white | black;
+        final long whiteZone = (whiteKing < 0) ? 0L : kingReach[whiteKing] | (1L << whiteKing);
+        final long blackZone = (blackKing < 0) ? 0L : kingReach[blackKing] | (1L << blackKing);
+
+        int whtMobility = 0;
+        int blkMobility = 0;
+        int whtAttackers = 0;     // white pieces reaching into the black king's zone
+        int blkAttackers = 0;
+        int whtAttackUnits = 0;
+        int blkAttackUnits = 0;
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = spots[ndx];
+            if (LiteUtil.isEmpty(b)) continue;
+
+            int side = LiteUtil.getSide(b);
+            int type = LiteUtil.getType(b);
+            long own = (side == Side.White) ? white : black;
+            long other = (side == Side.White) ? black : white;
+
+            long reach;
+            switch (type) {
+                case LiteBoard.Pawn:
+                    reach = pawnReach(ndx, side, LiteUtil.hasMoved(b), occupied, other);
+                    break;
+                case LiteBoard.Knight:
+                    reach = knightReach[ndx];
+                    break;
+                case LiteBoard.Bishop:
+                    reach = slide(ndx, occupied, bishopDx, bishopDy);
+                    break;
+                case LiteBoard.Rook:
+                    reach = slide(ndx, occupied, rookDx, rookDy);
+                    break;
+                case LiteBoard.Queen:
+                    reach = slide(ndx, occupied, rookDx, rookDy) | slide(ndx, occupied, bishopDx, bishopDy);
+                    break;
+                case LiteBoard.King:
+                    reach = kingReach[ndx];
+                    break;
+                default:
+                    reach = 0L;
+                    break;
+            }
+
+            int moves = Long.bitCount(reach & ~own);
+            if (side == Side.White) {
+                whtMobility += moves;
+                long hits = reach & blackZone;
+                if (hits != 0 && zoneWeights[type] != 0) {
+                    whtAttackers++;
+                    whtAttackUnits += zoneWeights[type] * Long.bitCount(hits);
+                }
+            } else {
+                blkMobility += moves;
+                long hits = reach & whiteZone;
+                if (hits != 0 && zoneWeights[type] != 0) {
+                    blkAttackers++;
+                    blkAttackUnits += zoneWeights[type] * Long.bitCount(hits);
+                }
+            }
+        }
+
+        final int attackScale = LiteEval.weights[LiteEval.KING_ATTACK];
+        int safety = 0;
+        if (whiteKing >= 0) {
+            safety += shelter(whiteKing, -1, whitePawns, blackPawns);
+            safety -= blkAttackUnits * attackerScale[Integer.min(blkAttackers, 7)] / 100 * attackScale / 100;
+        }
+        if (blackKing >= 0) {
+            safety -= shelter(blackKing, 1, blackPawns, whitePawns);
+            safety += whtAttackUnits * attackerScale[Integer.min(whtAttackers, 7)] / 100 * attackScale / 100;
+        }
+
+        // king safety only matters while there is enough material left to mount an attack
+        int phase = Integer.min(board.phase, LiteEval.MAX_PHASE);
+        safety = safety * LiteEval.positionScale * phase / LiteEval.MAX_PHASE;
+
+        return pack(whtMobility - blkMobility, safety);
+    }
+
+    /**
+     * Bound the king safety score with the current weights: one king behind a full pawn
+     * shield while the other has open files on all three of its files and is under attack.
+     *
+     * @return the largest king safety score either side is expected to get
+     */
+    static int maxKingSafety() {
+        int shelter = 3 * (Integer.max(0, LiteEval.weights[LiteEval.SHIELD1])
+                + Integer.max(0, LiteEval.weights[LiteEval.SEMI_OPEN])
+                + Integer.max(0, LiteEval.weights[LiteEval.OPEN_FILE]));
+        int attack = ATTACK_SPREAD * Integer.max(0, LiteEval.weights[LiteEval.KING_ATTACK]) / 100;
+        return (shelter + attack) * LiteEval.positionScale;
+    }
+
+    /**
+     * Find the pseudo-legal captures of one side: the moves of its pieces onto the other
+     * side's pieces, without checking whether they leave its own king in check.  Each is
+     * packed as victim type << 16 | (7 - attacker type) << 12 | from << 6 | to so sorting
+     * them puts the most valuable victims taken by the least valuable attackers last.
+     * En passant captures are not included.
+     *
+     * @param board the board to find the captures on
+     * @param side  the side making the captures
+     * @param moves where to put the captures; 16 pieces can't make more than 256 of them
+     * @return the number of captures put in moves
+     */
+    public static int captures(final LiteBoard board, final int side, final int[] moves) {
+        final byte[] spots = board.board;
+
+        long own = 0L;
+        long other = 0L;
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = spots[ndx];
+            if (LiteUtil.isEmpty(b)) continue;
+            if (LiteUtil.getSide(b) == side)
+                own |= 1L << ndx;
+            else
+                other |= 1L << ndx;
+        }
+        final long occupied = own | other;
+
+        int count = 0;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int ndx = Long.numberOfTrailingZeros(pieces);
+            byte b = spots[ndx];
+            int type = LiteUtil.getType(b);
+
+            long reach;
+            switch (type) {
+                case LiteBoard.Pawn:
+                    reach = pawnReach(ndx, side, true, occupied, other);
+                    break;
+                case LiteBoard.Knight:
+                    reach = knightReach[ndx];
+                    break;
+                case LiteBoard.Bishop:
+                    reach = slide(ndx, occupied, bishopDx, bishopDy);
+                    break;
+                case LiteBoard.Rook:
+                    reach = slide(ndx, occupied, rookDx, rookDy);
+                    break;
+                case LiteBoard.Queen:
+                    reach = slide(ndx, occupied, rookDx, rookDy) | slide(ndx, occupied, bishopDx, bishopDy);
+                    break;
+                case LiteBoard.King:
+                    reach = kingReach[ndx];
+                    break;
+                default:
+                    reach = 0L;
+                    break;
+            }
+
+            for (long targets = reach & other; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int victim = LiteUtil.getType(spots[to]);
+                moves[count++] = (victim << 16) | ((7 - type) << 12) | (ndx << 6) | to;
+            }
+        }
+        return count;
+    }
+
+    // the pawn shield and open files around a king, in centipawns
+    private static int shelter(final int king, final int forward, final long ownPawns, final long theirPawns) {
+        final int shieldBonus1 = LiteEval.weights[LiteEval.SHIELD1];
+        final int shieldBonus2 = LiteEval.weights[LiteEval.SHIELD2];
+        final int semiOpenPenalty = LiteEval.weights[LiteEval.SEMI_OPEN];
+        final int openPenalty = LiteEval.weights[LiteEval.OPEN_FILE];
+
+        int col = king % 8;
+        int row = king / 8;
+        int score = 0;
+        for (int c = Integer.max(0, col - 1); c <= Integer.min(7, col + 1); c++) {
+            int r1 = row + forward;
+            int r2 = row + forward * 2;
+            if (r1 >= 0 && r1 <= 7 && (ownPawns & (1L << (c + r1 * 8))) != 0) {
+                score += shieldBonus1;
+            } else if (r2 >= 0 && r2 <= 7 && (ownPawns & (1L << (c + r2 * 8))) != 0) {
+                score += shieldBonus2;
+            }
+            if ((ownPawns & fileMask[c]) == 0) {
+                score -= semiOpenPenalty;
+                if ((theirPawns & fileMask[c]) == 0) {
+                    score -= openPenalty;
+                }
+            }
+        }
+        return score;
+    }
+
+    private static long pack(final int mobility, final int kingSafety) {
+        return ((long) mobility << 32) | (kingSafety & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param scan the result of scan()
+     * @return the number of White pseudo-legal moves minus the number of Black pseudo-legal moves
+     */
+    public static int mobility(final long scan) {
+        return (int) (scan >> 32);
+    }
+
+    /**
+     * @param scan the result of scan()
+     * @return the king safety score, positive in White's favor
+     */
+    public static int kingSafety(final long scan) {
+        return (int) scan;
+    }
+
+    // the spots a pawn can push to or capture on
+    private static long pawnReach(final int ndx, final int side, final boolean moved,
+                                  final long occupied, final long other) {
+        int col = ndx % 8;
+        int row = ndx / 8;
+        int forward = (side == Side.White) ? -1 : 1;
+        int next = row + forward;
+        if (next < 0 || next > 7) return 0L;
+
+        long reach = 0L;
+        long ahead = 1L << (col + next * 8);
+        if ((occupied & ahead) == 0) {
+            reach |= ahead;
+            int jump = next + forward;
+            if (!moved && jump >= 0 && jump <= 7 && (occupied & (1L << (col + jump * 8))) == 0) {
+                reach |= 1L << (col + jump * 8);
+            }
+        }
+        if (col > 0) reach |= other & (1L << ((col - 1) + next * 8));
+        if (col < 7) reach |= other & (1L << ((col + 1) + next * 8));
+        return reach;
+    }
+
+    // the spots a sliding piece reaches along the given directions up to and including the first piece
+    private static long slide(final int ndx, final long occupied, final int[] dx, final int[] dy) {
+        int col = ndx % 8;
+        int row = ndx / 8;
+        long reach = 0L;
+        for (int dir = 0; dir < dx.length; dir++) {
+            int x = col + dx[dir];
+            int y = row + dy[dir];
+            while (isValidSpot(x, y)) {
+                long spot = 1L << (x + y * 8);
+                reach |= spot;
+                if ((occupied & spot) != 0) break;
+                x += dx[dir];
+                y += dy[dir];
+            }
+        }
+        return reach;
+    }
+}
@@ -5,6 +5,7 @@
 // No setters/getters.  All free love.  We're all adults here.  No hand holding. Don't screw up.
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -35,6 +36,33 @@ public class LiteBoard {
     public byte[] pieces1;
     public byte[] pieces2;
 
+    // The move lists are only generated when they are asked for through ensureMoves1()
+    // and ensureMoves2().  Until then numMoves1 and numMoves2 are 0.
+    private boolean moves1Ready;
+    private boolean moves2Ready;
+
+    // Running material and position totals for each side and the game phase, kept up to date by executeMove
+    public int whtMaterial;
+    public int blkMaterial;
+    public int whtMiddlegame;
+    public int blkMiddlegame;
+    public int whtEndgame;
+    public int blkEndgame;
+    public int phase;
+
+    // Zobrist keys of all of the pieces and of just the pawns on the board, kept up to date by executeMove
+    public long hashKey;
+    public long pawnKey;
+
+    // The NNUE network's accumulators for each side's point of view, kept up to date by
+    // executeMove while a network is in use.  Null when LiteEval is doing the evaluation.
+    public LiteNNUE nnue;
+    public short[] whtAccumulator;
+    public short[] blkAccumulator;
+
+    // Set to check the running totals against a full recount after every move
+    public static boolean verifyScores = false;
+
 
     // utility functions for board location attributes like piece side, piece type, etc
     final public static int  Empty  = 0b00000000;
@@ -94,18 +122,39 @@ public class LiteBoard {
      * @param orig the LiteBoard object to copy from to create this new board instance
      */
     public LiteBoard(LiteBoard orig) {
+        this(orig, true);
+    }
+
+
+    /**
+     * Copy-constructor for new LiteBoard objects
+     *
+     * @param orig      the LiteBoard object to copy from to create this new board instance
+     * @param copyMoves false to leave out whatever move lists orig has generated.  Use this
+     *                  when a move is about to be made on the copy since that makes the
+     *                  copied lists stale anyway.
+     */
+    public LiteBoard(LiteBoard orig, boolean copyMoves) {
+        this(orig, copyMoves, true);
+    }
+
+
+    /**
+     * Copy-constructor that can leave out the network's accumulators
+     *
+     * @param orig        the LiteBoard object to copy from to create this new board instance
+     * @param copyMoves   false to leave out whatever move lists orig has generated
+     * @param copyNetwork false to leave out the NNUE accumulators, for a copy that is only
+     *                    made to test a move and is never evaluated
+     */
+    private LiteBoard(LiteBoard orig, boolean copyMoves, boolean copyNetwork) {
         board   = new byte[BOARD_SIZE];
-        moves1  = new Move[256];
-        moves2  = new Move[256];
         pieces1 = new byte[16];
         pieces2 = new byte[16];
         taken1  = new byte[16];
         taken2  = new byte[16];
         history = new Move[256];
 
-        numMoves1  = orig.numMoves1;
-        numMoves2  = orig.numMoves2;
-
         numPieces1 = orig.numPieces1;
         numPieces2 = orig.numPieces2;
 
@@ -122,14 +171,44 @@ public class LiteBoard {
         blkKingLoc = orig.blkKingLoc;
         whtKingLoc = orig.whtKingLoc;
 
+        whtMaterial = orig.whtMaterial;
+        blkMaterial = orig.blkMaterial;
+        whtMiddlegame = orig.whtMiddlegame;
+        blkMiddlegame = orig.blkMiddlegame;
+        whtEndgame = orig.whtEndgame;
+        blkEndgame = orig.blkEndgame;
+        phase = orig.phase;
+        hashKey = orig.hashKey;
+        pawnKey = orig.pawnKey;
+
+        nnue = copyNetwork ? orig.nnue : null;
+        if (nnue != null) {
+            whtAccumulator = orig.whtAccumulator.clone();
+            blkAccumulator = orig.blkAccumulator.clone();
+        }
+
         System.arraycopy(orig.board,   0, board,   0, BOARD_SIZE);
 
-        for (int ndx=0; ndx < numMoves1; ndx++) {
-            moves1[ndx] = new Move(orig.moves1[ndx]);
+        if (copyMoves && orig.moves1Ready) {
+            numMoves1 = orig.numMoves1;
+            moves1 = new Move[numMoves1];
+            for (int ndx=0; ndx < numMoves1; ndx++) {
+                moves1[ndx] = new Move(orig.moves1[ndx]);
+            }
+            moves1Ready = true;
+        } else {
+            moves1 = NO_MOVES;
         }
 
-        for (int ndx=0; ndx < numMoves2; ndx++) {
-            moves2[ndx] = new Move(orig.moves2[ndx]);
+        if (copyMoves && orig.moves2Ready) {
+            numMoves2 = orig.numMoves2;
+            moves2 = new Move[numMoves2];
+            for (int ndx=0; ndx < numMoves2; ndx++) {
+                moves2[ndx] = new Move(orig.moves2[ndx]);
+            }
+            moves2Ready = true;
+        } else {
+            moves2 = NO_MOVES;
         }
 
         System.arraycopy(orig.pieces1,   0, pieces1, 0, numPieces1);
@@ -149,8 +228,8 @@ public class LiteBoard {
      */
     public LiteBoard() {
         board   = new byte[BOARD_SIZE];
-        moves1  = new Move[256];
-        moves2  = new Move[256];
+        moves1  = NO_MOVES;
+        moves2  = NO_MOVES;
         pieces1 = new byte[16];
         pieces2 = new byte[16];
         taken1  = new byte[16];
@@ -162,16 +241,7 @@ public class LiteBoard {
         turn = Side.White;
         turns = 1;
 
-        numMoves1 = moves1.length;
-        for (int i = 0; i < numMoves1; i++) {
-            moves1[i] = new Move(0, 0, 0, 0, 0);
-        }
         numMoves1 = 0;
-
-        numMoves2 = moves2.length;
-        for (int i = 0; i < numMoves2; i++) {
-            moves2[i] = new Move(0, 0, 0, 0, 0);
-        }
         numMoves2 = 0;
 
         numHist = history.length;
@@ -223,8 +293,8 @@ public class LiteBoard {
         board[6 + 7 * 8] = LiteUtil.makeSpot(LiteBoard.Knight,   Side.White, false, false);
         board[7 + 7 * 8] = LiteUtil.makeSpot(LiteBoard.Rook,     Side.White, false, false);
 
-        generateMoveLists();
-        int a = 1;
+        refreshScores();
+        countPieces();
     }
 
     public static void dumpBoard(LiteBoard board) {
@@ -276,24 +346,155 @@ public class LiteBoard {
     }
 
 
-    private void generateMoveLists() {
+    private static final Move[] NO_MOVES = new Move[0];
+
+    /**
+     * Make sure the sorted legal moves for the player whose turn it is are in moves1 and numMoves1.
+     * The moves are generated the first time this is called after the turn advances.
+     */
+    public synchronized void ensureMoves1() {
+        if (moves1Ready) return;
         List<Move> moves = getMovesSorted(turn);
         numMoves1 = moves.size();
-        for (int i = 0; i < numMoves1; i++) {
-            moves1[i] = moves.get(i);
-        }
+        moves1 = moves.toArray(NO_MOVES);
+        moves1Ready = true;
+    }
 
-        moves = getMovesSorted((turn+1)%2);
+    /**
+     * Make sure the sorted legal moves for the player who is not moving next are in moves2 and numMoves2.
+     * The search never needs these; they are for the display and the end game checks.
+     * Both of these are synchronized since the display and a background search can ask
+     * for the lists of the game board at the same time.
+     */
+    public synchronized void ensureMoves2() {
+        if (moves2Ready) return;
+        List<Move> moves = getMovesSorted((turn+1)%2);
         numMoves2 = moves.size();
-        for (int i = 0; i < numMoves2; i++) {
-            moves2[i] = moves.get(i);
+        moves2 = moves.toArray(NO_MOVES);
+        moves2Ready = true;
+    }
+
+    // throw away the move lists once the board has changed
+    private void clearMoveLists() {
+        moves1Ready = false;
+        moves2Ready = false;
+        moves1 = NO_MOVES;
+        moves2 = NO_MOVES;
+        numMoves1 = 0;
+        numMoves2 = 0;
+    }
+
+    // pieces1 and pieces2 hold the pieces of whoever's color is in .turn and of the other side
+    private void countPieces() {
+        numPieces1 = 0;
+        numPieces2 = 0;
+        for (int ndx = 0; ndx < BOARD_SIZE; ndx++) {
+            byte b = board[ndx];
+            if (LiteUtil.isEmpty(b)) continue;
+            if (LiteUtil.getSide(b) == turn)
+                pieces1[numPieces1++] = b;
+            else
+                pieces2[numPieces2++] = b;
+        }
+    }
+
+
+    /**
+     * Recount the pieces and the material and position totals for both sides from scratch.
+     * This must be called after the board array is changed directly instead
+     * of through executeMove, like when a position is loaded from FEN.
+     */
+    public void refreshScores() {
+        clearMoveLists();
+        countPieces();
+
+        whtMaterial = 0;
+        blkMaterial = 0;
+        whtMiddlegame = 0;
+        blkMiddlegame = 0;
+        whtEndgame = 0;
+        blkEndgame = 0;
+        phase = 0;
+        hashKey = 0L;
+        pawnKey = 0L;
+        nnue = null;
+        for (int ndx = 0; ndx < BOARD_SIZE; ndx++) {
+            score(ndx);
+            if (getType(ndx) == King) {
+                if (getSide(ndx) == Side.White)
+                    whtKingLoc = ndx;
+                else
+                    blkKingLoc = ndx;
+            }
+        }
+
+        // the accumulators need both kings' spots so they are done once those are known
+        nnue = LiteNNUE.getNetwork();
+        whtAccumulator = null;
+        blkAccumulator = null;
+        if (nnue != null) {
+            whtAccumulator = new short[nnue.hidden];
+            blkAccumulator = new short[nnue.hidden];
+            nnue.refresh(this, Side.White);
+            nnue.refresh(this, Side.Black);
+        }
+    }
+
+    // add the piece at the given spot to its side's running totals
+    private void score(final int ndx) {
+        byte b = board[ndx];
+        if (LiteUtil.isEmpty(b)) return;
+        phase += LiteEval.phaseValue(b);
+        hashKey ^= LiteZobrist.pieceKey(ndx, b);
+        if (LiteUtil.getType(b) == Pawn) pawnKey ^= LiteZobrist.pieceKey(ndx, b);
+        if (nnue != null) nnue.addPiece(this, ndx, b);
+        if (LiteUtil.getSide(b) == Side.White) {
+            whtMaterial += LiteEval.materialValue(b);
+            whtMiddlegame += LiteEval.middlegameValue(ndx, b);
+            whtEndgame += LiteEval.endgameValue(ndx, b);
+        } else {
+            blkMaterial += LiteEval.materialValue(b);
+            blkMiddlegame += LiteEval.middlegameValue(ndx, b);
+            blkEndgame += LiteEval.endgameValue(ndx, b);
+        }
+    }
+
+    // remove the piece at the given spot from its side's running totals
+    private void unscore(final int ndx) {
+        byte b = board[ndx];
+        if (LiteUtil.isEmpty(b)) return;
+        phase -= LiteEval.phaseValue(b);
+        hashKey ^= LiteZobrist.pieceKey(ndx, b);
+        if (LiteUtil.getType(b) == Pawn) pawnKey ^= LiteZobrist.pieceKey(ndx, b);
+        if (nnue != null) nnue.removePiece(this, ndx, b);
+        if (LiteUtil.getSide(b) == Side.White) {
+            whtMaterial -= LiteEval.materialValue(b);
+            whtMiddlegame -= LiteEval.middlegameValue(ndx, b);
+            whtEndgame -= LiteEval.endgameValue(ndx, b);
+        } else {
+            blkMaterial -= LiteEval.materialValue(b);
+            blkMiddlegame -= LiteEval.middlegameValue(ndx, b);
+            blkEndgame -= LiteEval.endgameValue(ndx, b);
         }
+    }
 
-        // at this point the Side (Black or White) constant is in the .turn value
-        // for the board.  Whichever color is to move next, it's moves are in
-        // moves1 and the non-moving players moves are in moves2.  Also both
-        // pieces1 and pieces2 are updated to contain the pieces with the same
-        // logic, pieces1 is for whoever's color is in .turn, the other in pieces2.
+    // compare the running totals against a full recount
+    private void checkScores() {
+        LiteBoard recount = new LiteBoard(this);
+        recount.refreshScores();
+        if (recount.whtMaterial != whtMaterial || recount.blkMaterial != blkMaterial
+                || recount.whtMiddlegame != whtMiddlegame || recount.blkMiddlegame != blkMiddlegame
+                || recount.whtEndgame != whtEndgame || recount.blkEndgame != blkEndgame
+                || recount.phase != phase || recount.pawnKey != pawnKey || recount.hashKey != hashKey
+                || !Arrays.equals(recount.whtAccumulator, whtAccumulator)
+                || !Arrays.equals(recount.blkAccumulator, blkAccumulator)) {
+            throw new IllegalStateException(String.format(
+                    "running scores %d/%d %d/%d %d/%d %d differ from recount %d/%d %d/%d %d/%d %d after %s",
+                    whtMaterial, blkMaterial, whtMiddlegame, blkMiddlegame, whtEndgame, blkEndgame, phase,
+                    recount.whtMaterial, recount.blkMaterial, recount.whtMiddlegame, recount.blkMiddlegame,
+                    recount.whtEndgame, recount.blkEndgame, recount.phase,
+                    lastMove));
+        }
     }
 
 
@@ -343,11 +544,19 @@ public class LiteBoard {
         // special check for en passant
         int type = getType(fi);
         int toType = getType(ti);
+
+        clearMoveLists();
+
+        // take the pieces on the spots that are changing out of the running totals
+        unscore(fi);
+        unscore(ti);
+
         if (toType == Empty && type == Pawn && fx != tx) { // en-passant capture
             if (turn != Side.Black)
                 taken2[numTaken2++] = (byte) Pawn;
             else
                 taken1[numTaken1++] = (byte) Pawn;
+            unscore(tx + fy * 8);
             board[tx + fy * 8] = LiteUtil.makeSpot(Empty, Side.Black, false, false);
         } else {
             if (toType != Empty) {
@@ -376,9 +585,11 @@ public class LiteBoard {
                     rfi = fy * 8 + 7;   // rook from-index
                     rti = fy * 8 + 5;   // rook to-index
                 }
+                unscore(rfi);
                 board[rti] = board[rfi];
                 setMoved(rti, true);
                 board[rfi] = LiteUtil.makeSpot(Empty, Side.Black, false, false);
+                score(rti);
             }
 
             if (fromSide == Side.Black)
@@ -392,6 +603,14 @@ public class LiteBoard {
             }
         }
 
+        // and add back whatever piece ended up on the destination
+        score(ti);
+
+        // every input of the mover's point of view depends on where its king is
+        if (nnue != null && type == King) {
+            nnue.refresh(this, fromSide);
+        }
+
         if (numHist >= history.length) {
             numHist -= history.length / 4;
             System.arraycopy(history, history.length / 4, history, 0, numHist);
@@ -399,6 +618,10 @@ public class LiteBoard {
         history[numHist++] = move;
 
         lastMove = new Move(move);
+
+        if (verifyScores) {
+            checkScores();
+        }
     }
 
 
@@ -410,8 +633,8 @@ public class LiteBoard {
      *      + .turn  contains the color of the new player to move next
      *      + .turns contains the total number of moves made so far
      *
-     *      + move list for current     moving player are in moves1     (turn's Side color: Black or White)
-     *      + move list for current non-moving player are in moves2     ( ((turn + 1) % 2)'s Side color: Black or White)
+     *      + move list for current     moving player goes in moves1 when ensureMoves1() is called
+     *      + move list for current non-moving player goes in moves2 when ensureMoves2() is called
      *      + piece list for current     moving player are in pieces1
      *      + piece list for current non-moving player are in pieces2
      *
@@ -419,7 +642,8 @@ public class LiteBoard {
     public void advanceTurn() {
         turns++;
         turn = ((turn + 1) % 2);
-        generateMoveLists();
+        clearMoveLists();
+        countPieces();
     }
 
 
@@ -434,17 +658,9 @@ public class LiteBoard {
     private List<Move> getMoves(final int side, boolean checkKing) {
         List<Move> moves = new ArrayList<>();
 
-        // We also update the pieces array and numPieces for this side
-        byte[] pieces = new byte[16];
-        int numPieces = 0;
-
         for (int ndx = 0; ndx < BOARD_SIZE; ndx++) {
             if (isEmpty(ndx) || getSide(ndx) != side) continue;
 
-            // add piece to list of pieces for this side
-            byte b = board[ndx];
-            pieces[numPieces++] = b;
-
             int col = ndx % 8;
             int row = ndx / 8;
             switch (getType(ndx)) {
@@ -469,14 +685,6 @@ public class LiteBoard {
             }
         }
 
-        if (side == turn) {
-            pieces1 = pieces;
-            numPieces1 = numPieces;
-        } else {
-            pieces2 = pieces;
-            numPieces2 = numPieces;
-        }
-
         if (checkKing) {
             moves = cleanupMoves(moves, side);
         }
@@ -488,7 +696,8 @@ public class LiteBoard {
     private List<Move> cleanupMoves(final List<Move> moves, final int side) {
         List<Move> valid = new ArrayList<>();
         for (Move move : moves) {
-            LiteBoard current = new LiteBoard(this);
+            // only the king's safety is looked at so the copy skips the network's accumulators
+            LiteBoard current = new LiteBoard(this, false, false);
             current.executeMove(move);
             if (!current.kingInCheck(side)) {
                 valid.add(move);
@@ -0,0 +1,44 @@
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The LiteBrotherTask objects are the younger moves at a split point in the search tree.
+ * Once the eldest move at a node has been searched, one of these is created for each of
+ * the remaining moves and handed to the fork/join pool where idle worker threads can steal
+ * them.  Each one picks up the current alpha-beta window from the shared split point right
+ * before it starts so it benefits from whatever its brothers have already found.
+ */
+public class LiteBrotherTask extends RecursiveAction {
+    private static final long serialVersionUID = 3951853120482017234L;
+
+    private final LiteSplitPoint splitPoint;
+    private final LiteMinimax minimax;
+    private final LiteBoard origBoard;
+    private final boolean maximize;
+    private final int depth;
+    private final Move move;
+
+    LiteBrotherTask(final LiteMinimax minimax, final LiteSplitPoint splitPoint,
+                    final LiteBoard origBoard, final Move move, int depth, boolean maximize) {
+        this.splitPoint = splitPoint;
+        this.origBoard = origBoard;
+        this.maximize = maximize;
+        this.minimax = minimax;
+        this.depth = depth;
+        this.move = move;
+    }
+
+    // This call is made to us when we are run or stolen by a worker thread
+    @Override
+    protected void compute() {
+        // No need to search this move if one of our brothers already refuted the node
+        if (splitPoint.isCutoff() || minimax.isStopped()) {
+            return;
+        }
+
+        BestMove best = new BestMove(maximize);
+        int value = minimax.searchMove(origBoard, move,
+                splitPoint.getAlpha(), splitPoint.getBeta(), depth, maximize, best);
+
+        splitPoint.update(move, value, best.movesExamined, best.move != null, best.noReplies);
+    }
+}
@@ -1,36 +1,222 @@
-
-import java.util.ArrayList;
-import java.util.List;
-
-// Class to implement high-performance map/reduce algorithm using parallel processing and Java Streams
+// Class to implement high-performance game score evaluation
 // Used for high speed game score evaluation of millions of board states
 // (c) 2019 Trent M. Wyatt
+//
+// The per-piece and per-location plugins below define the terms of the evaluation.
+// Since the value each of them gives only depends on the piece and the spot it is on,
+// they are compiled once into flat tables indexed by spot and piece.  The board adds
+// and removes table entries as pieces move so it always holds the running material
+// and position totals for each side, and evaluating a board just reads those totals.
+// Nothing is allocated so it can be called at every leaf of every search thread.
+//
+// Pieces belong on different squares as the game goes on; the king hides behind its
+// pawns while there is a lot of material on the board but walks to the center once
+// it is traded off, and pawns become worth pushing.  So each piece has a middlegame
+// and an endgame piece-square table, and the two position totals are blended by the
+// game phase: the amount of non-pawn material left on the board.
+//
+// A whole-board plugin can take over the evaluation entirely, like the LiteNNUE network.
+//
+// The weights of the terms can be tuned against the results of real games by LiteTuner,
+// which writes them to a weights file that is loaded with -weights=file through loadWeights().
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 
 public class LiteEval {
 
     // Filters to decide what to include in our evaluation
     public static int MATERIAL = 0x01;  // favor moves that leave more pieces for our side aftewards
-    public static int CENTER   = 0x02;  // favor moves that occupy the center of the board
+    public static int CENTER   = 0x02;  // favor moves that put our pieces on good squares for the game phase
     public static int MOBILE   = 0x04;  // favor moves that leave us the most moves afterwards
+    public static int PAWNS    = 0x08;  // favor sound pawn structures and passed pawns
+    public static int KING     = 0x10;  // favor sheltered kings and attacks on the other king
+    static final int ALL = MATERIAL | CENTER | MOBILE | PAWNS | KING;
+
+    // The default file the tuned weights are kept in
+    public static final String WEIGHTS_FILE = "eval.properties";
+
+    // The tunable weights, by index into weights[].  The piece values, pawn and king terms
+    // are in centipawns, mobility is in score units (1/100 of a centipawn) per move, and
+    // the passed pawn bonuses and king attack danger are scaled by their percentages.
+    static final int PAWN_VALUE   = 0;
+    static final int KNIGHT_VALUE = 1;
+    static final int BISHOP_VALUE = 2;
+    static final int ROOK_VALUE   = 3;
+    static final int QUEEN_VALUE  = 4;
+    static final int MOBILITY     = 5;
+    static final int DOUBLED      = 6;
+    static final int ISOLATED     = 7;
+    static final int BACKWARD     = 8;
+    static final int PASSED       = 9;
+    static final int SHIELD1      = 10;
+    static final int SHIELD2      = 11;
+    static final int SEMI_OPEN    = 12;
+    static final int OPEN_FILE    = 13;
+    static final int KING_ATTACK  = 14;
+
+    public static final String[] weightNames = {
+            "pawn", "knight", "bishop", "rook", "queen",
+            "mobility", "doubled", "isolated", "backward", "passed",
+            "shield1", "shield2", "semiOpen", "openFile", "kingAttack"
+    };
+
+    private static final int[] defaultWeights = {
+            100, 300, 300, 500, 900,
+            3, 10, 15, 8, 100,
+            10, 5, 15, 10, 100
+    };
+
+    static final int[] weights = defaultWeights.clone();
+
+    // How far LiteTuner moves each weight in one step.  The weights are in different
+    // units so each step is about a centipawn in a typical position: mobility is in
+    // 1/100 of a centipawn per move of a difference of around ten moves, and a percent
+    // of the passed pawn bonuses or the king attack danger is well under a centipawn.
+    static final int[] tuningSteps = {
+            1, 1, 1, 1, 1,
+            5, 1, 1, 1, 2,
+            1, 1, 1, 1, 2
+    };
+
+    // The most the terms after material and position are expected to add up to.
+    // A board whose cheap score is further than this outside the search window
+    // can't come back into it so its expensive terms are not worth working out.
+    // It is worked out from the weights each time they change; see lazyMargin().
+    private static int lazyMargin;
+
+    // The largest difference in the number of moves the two sides have that the
+    // lazy margin allows for
+    static final int MOBILITY_SPREAD = 50;
+
+    public static final LongAdder numLazyExits = new LongAdder();
+
+    // The piece-square tables are in centipawns; this scales them to our piece values
+    static final int positionScale = LiteUtil.getValue(LiteBoard.Pawn) / 100;
+
+    // The phase each piece adds to the game phase, and the phase of a full board
+    private static final int[] phaseWeights = {0, 0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+
+    // The piece-square tables from White's point of view, in board order (a8 first).
+    // Black's pieces use the same tables with the rows flipped.
+
+    private static final int[] pawnMg = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0 };
+
+    private static final int[] pawnEg = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0 };
+
+    private static final int[] knight = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50 };
+
+    private static final int[] bishop = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20 };
+
+    private static final int[] rook = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0 };
+
+    private static final int[] queen = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20 };
+
+    private static final int[] kingMg = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20 };
+
+    private static final int[] kingEg = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50 };
+
+    // indexed by piece type; the minor and major pieces use the same table for both phases
+    private static final int[][] middlegameTables = {null, pawnMg, knight, bishop, rook, queen, kingMg};
+    private static final int[][] endgameTables    = {null, pawnEg, knight, bishop, rook, queen, kingEg};
 
 
     // a material values plugin:
     private static pieceEvalExt materialEvaluator = p ->
-            LiteUtil.getValue(p) * ((LiteUtil.getSide(p) == Side.Black) ? -1 : 1);
-
+            pieceValue(p) * ((LiteUtil.getSide(p) == Side.Black) ? -1 : 1);
 
-    // a center location bonus plugin:
-    private static locationEvalExt centerEvaluator = (ndx, p) -> {
+    // the tuned value of a piece, or the king's fixed value
+    private static int pieceValue(final byte p) {
         int type = LiteUtil.getType(p);
-        if (type == LiteBoard.King) return 0;
+        if (type == LiteBoard.King) return LiteUtil.getValue(p);
+        return weights[PAWN_VALUE + type - LiteBoard.Pawn] * positionScale;
+    }
 
-        int dx = ndx % 8;
-        if (dx > 3) dx = 7 - dx;
-        int dy = ndx / 8;
-        if (dy > 3) dy = 7 - dy;
 
-        return (dx + dy) * type * ((LiteUtil.getSide(p) == Side.Black) ? -1 : 1);
-    };
+    // the middlegame and endgame location plugins:
+    private static locationEvalExt middlegameEvaluator = (ndx, p) -> pieceSquare(middlegameTables, ndx, p);
+    private static locationEvalExt endgameEvaluator = (ndx, p) -> pieceSquare(endgameTables, ndx, p);
+
+    private static int pieceSquare(final int[][] tables, final int ndx, final byte p) {
+        int[] table = tables[LiteUtil.getType(p)];
+        if (table == null) return 0;
+
+        if (LiteUtil.getSide(p) == Side.White)
+            return table[ndx] * positionScale;
+        else
+            return -table[ndx ^ 56] * positionScale;
+    }
 
 
     //
@@ -49,56 +235,264 @@ public class LiteEval {
         int eval(int ndx, byte b);
     }
 
+    // 'evaluate the whole board' extension interface
+    @FunctionalInterface
+    public interface boardEvalExt {
+        int eval(LiteBoard board);
+    }
+
+
+    // the whole-board plugin used in place of the terms below, or null to use the terms
+    private static volatile boardEvalExt boardEvaluator = null;
+
+    public static void setBoardEvaluator(final boardEvalExt evaluator) {
+        boardEvaluator = evaluator;
+    }
+
+    public static boolean hasBoardEvaluator() {
+        return boardEvaluator != null;
+    }
+
+
+    // The bits of a board spot that the table terms depend on: the piece type and side
+    private static final int PIECE_MASK = LiteUtil.Type | LiteUtil.Side;
+    private static final int PIECE_CODES = PIECE_MASK + 1;
+
+    // The compiled plugin terms.  Each entry is the value of a piece in favor of its own
+    // side so the board can keep a running total for each side.
+    private static final int[] materialTable = new int[PIECE_CODES];
+    private static final int[] phaseTable = new int[PIECE_CODES];
+    private static final int[] middlegameTable = new int[LiteBoard.BOARD_SIZE * PIECE_CODES];
+    private static final int[] endgameTable = new int[LiteBoard.BOARD_SIZE * PIECE_CODES];
+
+    static {
+        compile();
+        lazyMargin = computeLazyMargin();
+    }
+
+    // build the tables from the plugins
+    private static void compile() {
+        for (int code = 0; code < PIECE_CODES; code++) {
+            byte b = (byte) code;
+            if (LiteUtil.isEmpty(b) || LiteUtil.getType(b) == LiteBoard.Marker) continue;
+
+            int sign = (LiteUtil.getSide(b) == Side.Black) ? -1 : 1;
+            materialTable[code] = materialEvaluator.eval(b) * sign;
+            phaseTable[code] = phaseWeights[LiteUtil.getType(b)];
+            for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+                middlegameTable[ndx * PIECE_CODES + code] = middlegameEvaluator.eval(ndx, b) * sign;
+                endgameTable[ndx * PIECE_CODES + code] = endgameEvaluator.eval(ndx, b) * sign;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the evaluation weights in use, in the order of weightNames
+     */
+    public static int[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Replace the evaluation weights.  The running totals of any board made before this
+     * are out of date afterwards so only boards made or refreshed later should be used,
+     * and the same goes for the scores in any evaluation cache.
+     *
+     * @param values the new weights in the order of weightNames
+     */
+    public static synchronized void setWeights(final int[] values) {
+        if (values.length != weights.length) {
+            throw new IllegalArgumentException("expected " + weights.length + " weights but got " + values.length);
+        }
+        System.arraycopy(values, 0, weights, 0, weights.length);
+        compile();
+        lazyMargin = computeLazyMargin();
+        LitePawnEval.clear();
+    }
+
+    /**
+     * Load the evaluation weights from a weights file.  Weights missing from the file
+     * keep their current values.
+     *
+     * @param filename the properties file of weights written by saveWeights()
+     * @throws IOException if the file can't be read or has a weight that isn't a number
+     */
+    public static void loadWeights(final String filename) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = new FileReader(filename)) {
+            props.load(reader);
+        }
+        int[] values = getWeights();
+        for (int i = 0; i < weightNames.length; i++) {
+            String value = props.getProperty(weightNames[i]);
+            if (value == null) continue;
+            try {
+                values[i] = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("%s: bad value '%s' for %s", filename, value, weightNames[i]));
+            }
+        }
+        setWeights(values);
+    }
+
+    /**
+     * Write the evaluation weights in use to a weights file.
+     *
+     * @param filename the properties file to write
+     * @param comment  a line to put at the top of the file
+     * @throws IOException if the file can't be written
+     */
+    public static void saveWeights(final String filename, final String comment) throws IOException {
+        try (Writer writer = new FileWriter(filename)) {
+            writer.write("# " + comment + "\n");
+            for (int i = 0; i < weightNames.length; i++) {
+                writer.write(String.format("%-12s = %d%n", weightNames[i], weights[i]));
+            }
+        }
+    }
+
+    /**
+     * @param b the piece to get the value of
+     * @return the material value of the piece in favor of its own side
+     */
+    public static int materialValue(final byte b) {
+        return materialTable[b & PIECE_MASK];
+    }
+
+    /**
+     * @param b the piece to get the phase of
+     * @return how much the piece adds to the game phase
+     */
+    public static int phaseValue(final byte b) {
+        return phaseTable[b & PIECE_MASK];
+    }
+
+    /**
+     * @param ndx the spot the piece is on
+     * @param b   the piece to get the value of
+     * @return the middlegame value of the piece on that spot in favor of its own side
+     */
+    public static int middlegameValue(final int ndx, final byte b) {
+        return middlegameTable[ndx * PIECE_CODES + (b & PIECE_MASK)];
+    }
+
+    /**
+     * @param ndx the spot the piece is on
+     * @param b   the piece to get the value of
+     * @return the endgame value of the piece on that spot in favor of its own side
+     */
+    public static int endgameValue(final int ndx, final byte b) {
+        return endgameTable[ndx * PIECE_CODES + (b & PIECE_MASK)];
+    }
+
     // Include all evaluations is not specified
     public static int evaluate(final LiteBoard board) {
-        return evaluate(board, MATERIAL | CENTER | MOBILE);
+        return evaluate(board, ALL);
     }
 
     public static int evaluate(final LiteBoard board, final int using) {
-        int score = 0;
+        boardEvalExt evaluator = boardEvaluator;
+        if (evaluator != null) {
+            return evaluator.eval(board);
+        }
+        return baseScore(board, using) + extraScore(board, using);
+    }
+
+    /**
+     * Evaluate a board for a search that only cares about scores inside (alpha, beta).
+     * The cheap material and position terms are added up first and if they are so far
+     * outside the window that the rest of the terms could not bring the score back
+     * into it, the rest are skipped and the cheap score is returned as it is.
+     * A whole-board plugin has no cheap part so it always gives the full score.
+     *
+     * @param board the board to evaluate
+     * @param alpha the lower bound of the scores the search cares about
+     * @param beta  the upper bound of the scores the search cares about
+     * @return the score of the board, exact if it is inside the window
+     */
+    public static int evaluate(final LiteBoard board, final int alpha, final int beta) {
+        if (hasBoardEvaluator()) {
+            return evaluate(board);
+        }
+        int score = baseScore(board, ALL);
+        if (isLazyExit(score, alpha, beta)) {
+            return score;
+        }
+        return score + extraScore(board, ALL);
+    }
 
-        int mobilityBonus = 3;
-        int centerBonus = 5;
+    // The evaluation terms that are read straight from the board's running totals
+    static int baseScore(final LiteBoard board, final int using) {
+        int score = 0;
 
+        // the material and position totals are kept up to date by the board as moves are made
         if ((using & MATERIAL) != 0) {
-            score += sum(transformAllPieces(board.board, materialEvaluator));
+            score += board.whtMaterial - board.blkMaterial;
         }
 
+        // blend the middlegame and endgame positions by how much material is left
         if ((using & CENTER) != 0) {
-            score += sum(transformAllLocations(board.board, centerEvaluator)) * centerBonus;
+            int phase = Integer.min(board.phase, MAX_PHASE);
+            int middlegame = board.whtMiddlegame - board.blkMiddlegame;
+            int endgame = board.whtEndgame - board.blkEndgame;
+            score += (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
         }
 
-        if ((using & MOBILE) != 0) {
-            int factor = (board.turn == Side.Black) ? -1 : 1;
+        return score;
+    }
+
+    // The evaluation terms that have to look at the pieces on the board
+    static int extraScore(final LiteBoard board, final int using) {
+        int score = 0;
 
-            score += board.numMoves1 * mobilityBonus * factor;
-            score -= board.numMoves2 * mobilityBonus * factor;
+        // mobility and king safety come from one pass over the pseudo-legal reach of the
+        // pieces so they don't need the legal move lists
+        if ((using & (MOBILE | KING)) != 0) {
+            long attacks = LiteAttacks.scan(board);
+            if ((using & MOBILE) != 0) {
+                score += LiteAttacks.mobility(attacks) * weights[MOBILITY];
+            }
+            if ((using & KING) != 0) {
+                score += LiteAttacks.kingSafety(attacks);
+            }
+        }
+
+        // the pawn structure is nearly always found in the pawn hash table
+        if ((using & PAWNS) != 0) {
+            score += LitePawnEval.evaluate(board);
         }
 
         return score;
     }
 
-    ////////////////////////////////////////////////////////////////
-    // extension mapping methods
-
-    // apply an 'all pieces' extension:
-    static private List<Integer> transformAllPieces(byte[] pieces, pieceEvalExt ext) {
-        List<Integer> transformed = new ArrayList<>();
-        for (byte b : pieces) transformed.add(ext.eval(b));
-        return transformed;
+    /**
+     * @return how far outside the search window a board's cheap score has to be for
+     * its expensive terms to be skipped
+     */
+    static int lazyMargin() {
+        return lazyMargin;
     }
 
-    // apply an 'all locations' extension:
-    static private List<Integer> transformAllLocations(byte[] pieces, locationEvalExt ext) {
-        List<Integer> transformed = new ArrayList<>();
-        for (int ndx=0; ndx < pieces.length; ndx++)
-            transformed.add(ext.eval(ndx, pieces[ndx]));
-        return transformed;
+    // The sum of the largest values each term of extraScore() gets with the current weights.
+    // Pawn structure and king safety can in theory swing by many pawns, so their bounds
+    // are taken from the positions real games have and lazyMargin() is checked against
+    // the test suites.
+    private static int computeLazyMargin() {
+        int mobility = MOBILITY_SPREAD * weights[MOBILITY];
+        return mobility + LitePawnEval.maxScore() + LiteAttacks.maxKingSafety();
     }
 
-    // an aggregator for evaluation results
-    static private int sum(List<Integer> list) {
-        return list.parallelStream().reduce(0, Integer::sum);
+    /**
+     * @param baseScore the cheap part of a board's score
+     * @param alpha     the lower bound of the scores the search cares about
+     * @param beta      the upper bound of the scores the search cares about
+     * @return true (and counted) if the rest of the terms can't bring the score into the window
+     */
+    static boolean isLazyExit(final int baseScore, final int alpha, final int beta) {
+        if (baseScore <= alpha - lazyMargin || baseScore >= beta + lazyMargin) {
+            numLazyExits.increment();
+            return true;
+        }
+        return false;
     }
 }
-
@@ -0,0 +1,119 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LiteEvalCache class remembers the evaluation of board states by their Zobrist
+ * key so that leaf positions reached again by another search thread, another move
+ * order or a later search don't have to be evaluated again.  The side to move is
+ * part of the key since a whole-board plugin like LiteNNUE scores a board from the
+ * side to move's point of view.
+ * <p>
+ * The cache is a fixed size table shared by all of the search threads without any
+ * locking.  Each slot holds the score and the key xor'ed with the score.  If two
+ * threads write the same slot at once a reader can see the key half of one entry
+ * with the score half of the other, but then the xor no longer gives back the key
+ * being looked up so it is treated as a miss instead of returning a wrong score.
+ */
+public class LiteEvalCache {
+    // 2^18 slots
+    private static final int DEFAULT_MEGABYTES = 4;
+
+    // each slot is a check and a score
+    private static final int SLOT_BYTES = 16;
+
+    private final int tableMask;
+    private final long[] checks;
+    private final long[] scores;
+
+    public final LongAdder numHits = new LongAdder();
+    public final LongAdder numMisses = new LongAdder();
+
+    public LiteEvalCache() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    /**
+     * Create a cache of about the given size.  The number of slots is rounded down
+     * to a power of two.
+     *
+     * @param megabytes the size of the cache in megabytes
+     */
+    public LiteEvalCache(final int megabytes) {
+        long slots = Long.max(1L, (long) megabytes * 1024 * 1024 / SLOT_BYTES);
+        int size = Integer.highestOneBit((int) Long.min(slots, 1 << 30));
+        tableMask = size - 1;
+        checks = new long[size];
+        scores = new long[size];
+    }
+
+    /**
+     * Get the full evaluation of a board, from the cache if possible.
+     *
+     * @param board the board to evaluate
+     * @return the score of the board, positive in White's favor
+     */
+    public int evaluate(final LiteBoard board) {
+        return evaluate(board, false, 0, 0);
+    }
+
+    /**
+     * Get the evaluation of a board for a search that only cares about scores inside
+     * (alpha, beta).  A full score from the cache is always used but on a miss the
+     * evaluation may stop early; see LiteEval.evaluate(board, alpha, beta).  Those
+     * partial scores only hold for this window so they are not added to the cache.
+     *
+     * @param board the board to evaluate
+     * @param alpha the lower bound of the scores the search cares about
+     * @param beta  the upper bound of the scores the search cares about
+     * @return the score of the board, positive in White's favor and exact if it is inside the window
+     */
+    public int evaluate(final LiteBoard board, final int alpha, final int beta) {
+        return evaluate(board, true, alpha, beta);
+    }
+
+    // look a board up and evaluate it on a miss, lazily if asked to and there is no whole-board plugin
+    private int evaluate(final LiteBoard board, final boolean lazy, final int alpha, final int beta) {
+        long key = board.hashKey ^ LiteZobrist.turnKey(board.turn);
+        int slot = (int) key & tableMask;
+
+        long score = scores[slot];
+        if ((checks[slot] ^ score) == key) {
+            numHits.increment();
+            return (int) score;
+        }
+        numMisses.increment();
+
+        int value;
+        if (lazy && !LiteEval.hasBoardEvaluator()) {
+            value = LiteEval.baseScore(board, LiteEval.ALL);
+            if (LiteEval.isLazyExit(value, alpha, beta)) {
+                return value;
+            }
+            value += LiteEval.extraScore(board, LiteEval.ALL);
+        } else {
+            value = LiteEval.evaluate(board);
+        }
+        store(slot, key, value);
+        return value;
+    }
+
+    /**
+     * Estimate how full the cache is from the slots at the start of the table.
+     *
+     * @return the number of slots in use out of every thousand
+     */
+    public int permilleFull() {
+        int sample = Integer.min(1000, tableMask + 1);
+        int used = 0;
+        for (int slot = 0; slot < sample; slot++) {
+            if (checks[slot] != 0 || scores[slot] != 0) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    private void store(final int slot, final long key, final int value) {
+        scores[slot] = value;
+        checks[slot] = key ^ value;
+    }
+}
@@ -0,0 +1,119 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LiteExecutors class owns the one long-lived pool of worker threads that all
+ * searches run on.  The pool is created the first time a search needs it and is then
+ * reused turn after turn and game after game, so no threads are created per move.
+ * <p>
+ * The number of workers comes from the maxThreads configuration setting but is never
+ * more than the number of processors available to us, so a small container is not
+ * oversubscribed.  When there are more root moves than workers the extra tasks simply
+ * wait in the pool's queues until a worker is free.
+ * <p>
+ * Each game also has a coordinator that waits on its search and gathers the results.
+ * That work spends nearly all of its time blocked, so when Main.useVirtualThreads is
+ * set and the JVM supports them the coordinators run on virtual threads.  Thousands of
+ * idle or waiting games then don't hold on to a platform thread each, while the CPU
+ * bound search work stays on the bounded search pool.
+ */
+public class LiteExecutors {
+    private static ForkJoinPool searchPool = null;
+    private static int maxThreads = 0;
+
+    // Executors.newVirtualThreadPerTaskExecutor() if this JVM has virtual threads
+    private static final Method newVirtualExecutor = findVirtualExecutorFactory();
+    private static boolean warnedNoVirtualThreads = false;
+
+    /**
+     * Set the maximum number of worker threads to search with.  If the pool is already
+     * running with a different size it is replaced.  Searches still running on the old
+     * pool are allowed to finish.
+     *
+     * @param threads the maximum number of worker threads, 0 to use all available processors
+     */
+    public static synchronized void setMaxThreads(int threads) {
+        maxThreads = threads;
+        if (searchPool != null && searchPool.getParallelism() != getPoolSize()) {
+            searchPool.shutdown();
+            searchPool = null;
+        }
+    }
+
+    /**
+     * Get the number of worker threads the search pool runs with
+     *
+     * @return the configured maximum number of threads bounded by the available processors
+     */
+    public static int getPoolSize() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return (maxThreads <= 0) ? processors : Integer.min(maxThreads, processors);
+    }
+
+    /**
+     * Get the shared pool all search work is submitted to, creating it if needed
+     *
+     * @return the search pool
+     */
+    public static synchronized ForkJoinPool getSearchPool() {
+        if (searchPool == null) {
+            searchPool = new ForkJoinPool(getPoolSize());
+        }
+        return searchPool;
+    }
+
+    /**
+     * Create the executor a game's coordinator work runs on: gathering the results
+     * of a background search and sending display messages while it waits.
+     *
+     * @return a virtual thread per task executor if virtual threads are enabled and
+     * available, otherwise a single platform thread executor
+     */
+    public static ExecutorService newCoordinatorExecutor() {
+        if (Main.useVirtualThreads) {
+            if (newVirtualExecutor != null) {
+                try {
+                    return (ExecutorService) newVirtualExecutor.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    e.printStackTrace();
+                }
+            } else if (!warnedNoVirtualThreads) {
+                warnedNoVirtualThreads = true;
+                Main.log(Main.LogLevel.WARN, "Virtual threads are not available in Java %s, using platform threads",
+                        System.getProperty("java.version"));
+            }
+        }
+        return Executors.newSingleThreadExecutor();
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stop the search pool when the program is exiting, giving any
+     * search threads still running a moment to finish up.
+     */
+    public static synchronized void shutdown() {
+        if (searchPool == null) return;
+
+        searchPool.shutdown();
+        try {
+            if (!searchPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                searchPool.shutdownNow();
+                if (!searchPool.awaitTermination(5, TimeUnit.SECONDS))
+                    System.err.println("some look-ahead threads did not terminate");
+            }
+        } catch (InterruptedException ie) {
+            searchPool.shutdownNow();
+        }
+        searchPool = null;
+    }
+}
@@ -8,16 +8,19 @@ import java.io.Serializable;
 import java.io.IOException;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.FutureTask;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.Future;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Arrays;
@@ -34,22 +37,50 @@ import java.util.Map;
 public class LiteMinimax implements Serializable {
     private static final long serialVersionUID = 7249069248361182397L;
 
+    // The shallowest depth at which the younger moves of a node are split off into
+    // their own stealable tasks.  Below this the work is too small to be worth it.
+    private static final int MIN_SPLIT_DEPTH = 2;
+
+    // The number of nodes searched between looks at the clock for the time limit
+    private static final int STOP_CHECK_INTERVAL = 64;
+
+    // The plies past the end of the search that captures are still followed
+    static final int QUIESCENCE_DEPTH = 2;
+
+    // Each search thread's count of calls to isStopped, so every thread looks at the
+    // clock every STOP_CHECK_INTERVAL of its own nodes no matter how many others there are
+    private static final ThreadLocal<int[]> stopCheckCount = ThreadLocal.withInitial(() -> new int[1]);
+
+    // The default number of milliseconds between the progress snapshots sent to the search listeners
+    private static final long DEFAULT_INFO_INTERVAL = 1000;
+
     private ExecutorService executorForMainSearch = null;
-    private ExecutorService pool = null;
-    private Object processedLock = null;
+    private ForkJoinPool searchPool = null;
+    private PolyglotBook book;
     public  Future<Move> currentSearch;
-    private FutureTask<BestMove>[] threadStack;
+    private ForkJoinTask<BestMove>[] threadStack;
+    private volatile CountDownLatch searchFinished;
+    private volatile boolean stopSearch;
     private double acceptableRiskLevel;
     private Consumer<String> callback;
+    private final List<Consumer<LiteSearchInfo>> searchListeners;
+    private final AtomicLong nextInfoTime;
+    private long infoInterval;
+    private volatile LiteBoard searchBoard;
+    private volatile int selDepth;
+    private long searchStart;
     private String serDeserFilename;
-    private long searchTimeLimit;
-    private long movesProcessed;
+    private volatile long searchTimeLimit;
+    private final LongAdder movesProcessed;
     private long gameDuration;
     private boolean maximize;
-    private long maxSeconds;
+    private long maxMillis;
+    private volatile long nodeLimit;
     private int maxThreads;
     private int numThreads;
     private int startDepth;
+    private volatile int searchDepth;
+    private boolean deepening;
     private long gameTime;
     private int throttle;
     public BestMove best;
@@ -59,6 +90,9 @@ public class LiteMinimax implements Serializable {
     //
     CachedMoveMap cachedMoves;
 
+    // Evaluations of leaf board states shared by all of the search threads
+    LiteEvalCache evalCache;
+
 
     /**
      * Create a LiteMinimax object
@@ -71,17 +105,24 @@ public class LiteMinimax implements Serializable {
      */
     public LiteMinimax(String filename, int depth, int maxSeconds) {
         this.acceptableRiskLevel = Main.riskLevel;
+        this.book = Main.book;
         this.best = new BestMove(false);
         this.cachedMoves = new CachedMoveMap();
+        this.evalCache = new LiteEvalCache();
         this.gameTime = System.nanoTime();
         this.serDeserFilename = filename;
-        this.maxSeconds = maxSeconds;
+        this.maxMillis = maxSeconds * 1000L;
+        this.nodeLimit = 0;
         this.currentSearch = null;
         this.startDepth = depth;
-        this.movesProcessed = 0L;
+        this.movesProcessed = new LongAdder();
         this.threadStack = null;
         this.maximize = false;
         this.callback = null;
+        this.searchListeners = new CopyOnWriteArrayList<>();
+        this.nextInfoTime = new AtomicLong();
+        this.infoInterval = DEFAULT_INFO_INTERVAL;
+        this.searchBoard = null;
         this.maxThreads = 0;
         this.numThreads = 0;
     }
@@ -89,9 +130,7 @@ public class LiteMinimax implements Serializable {
 
     private void initThreadSupport() {
         if (executorForMainSearch == null) {
-            executorForMainSearch = Executors.newSingleThreadExecutor();
-            pool = Executors.newFixedThreadPool(100);
-            processedLock = new Object();
+            executorForMainSearch = LiteExecutors.newCoordinatorExecutor();
             currentSearch = null;
             threadStack = null;
             maxThreads = 0;
@@ -132,6 +171,23 @@ public class LiteMinimax implements Serializable {
     }
 
 
+    /**
+     * Wait for a search launched in the background to finish.  Afterwards
+     * moveSearchIsDone() returns true.
+     *
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public void awaitSearch() throws InterruptedException {
+        Future<Move> search = currentSearch;
+        if (search == null) return;
+        try {
+            search.get();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+
     /**
      * Get the best move found by the last search
      *
@@ -161,29 +217,19 @@ public class LiteMinimax implements Serializable {
      * @return the number of moves examined for the last search started
      */
     public long getNumMovesExamined() {
-        if (processedLock != null) {
-            synchronized (processedLock) {
-                return movesProcessed;
-            }
-        } else {
-            return movesProcessed;
-        }
+        return movesProcessed.sum();
     }
 
 
     /**
-     * Add to the number of moves examined so far during this search
+     * Add to the number of moves examined so far during this search.
+     * This is called by every search thread at every node so the count
+     * is striped across threads and only added up when it is read.
      *
      * @param num   the number of moves examined
      */
     public void addNumMovesExamined(int num) {
-        if (processedLock != null) {
-            synchronized (processedLock) {
-                movesProcessed += num;
-            }
-        } else {
-            movesProcessed += num;
-        }
+        movesProcessed.add(num);
     }
 
 
@@ -199,6 +245,40 @@ public class LiteMinimax implements Serializable {
     }
 
 
+    /**
+     * Register a listener to be sent the progress of each search as it goes: each
+     * time the best move found changes, every so often while the search threads
+     * are working (see setInfoInterval) and once more when the search finishes.
+     * Listeners are called on the search threads so they should return quickly.
+     *
+     * @param listener the listener to send search progress snapshots to
+     */
+    public void addSearchListener(Consumer<LiteSearchInfo> listener) {
+        searchListeners.add(listener);
+    }
+
+
+    /**
+     * Stop sending search progress to a listener.
+     *
+     * @param listener a listener registered with addSearchListener()
+     */
+    public void removeSearchListener(Consumer<LiteSearchInfo> listener) {
+        searchListeners.remove(listener);
+    }
+
+
+    /**
+     * Set how often the search listeners are sent progress while the search threads
+     * are working.  Changes of the best move are sent as soon as they happen.
+     *
+     * @param millis the least number of milliseconds between progress snapshots
+     */
+    public void setInfoInterval(long millis) {
+        infoInterval = millis;
+    }
+
+
     /**
      * Ask the currently associated board evaluator object
      * to give a score for this board state.
@@ -212,7 +292,94 @@ public class LiteMinimax implements Serializable {
      * @return the score for the evaluation of this board
      */
     public int evaluate(final LiteBoard board) {
-        return LiteEval.evaluate(board);
+        return evalCache.evaluate(board);
+    }
+
+
+    /**
+     * Set the number of plies the next searches look ahead.
+     *
+     * @param depth the ply depth to search to
+     */
+    public void setDepth(int depth) {
+        startDepth = depth;
+    }
+
+
+    /**
+     * Get the number of plies searches look ahead.
+     *
+     * @return the ply depth searches go to
+     */
+    public int getDepth() {
+        return startDepth;
+    }
+
+
+    /**
+     * Set the time limit of the next searches.  A search that runs out of time returns
+     * the best move it has found so far.
+     *
+     * @param millis the maximum number of milliseconds to search for, 0 for no limit
+     */
+    public void setTimeLimit(long millis) {
+        maxMillis = millis;
+    }
+
+
+    /**
+     * Have the next searches go one ply deeper at a time up to the search depth, so
+     * stopping one part way still leaves the move of the last depth it finished.
+     * Searches with a time or a node limit always do this.
+     *
+     * @param deepen true to deepen searches that have no limit too
+     */
+    public void setDeepening(boolean deepen) {
+        deepening = deepen;
+    }
+
+
+    /**
+     * Set a limit on the number of moves the next searches examine.  Like the time
+     * limit it is only checked every so often so a search can go a little over it.
+     *
+     * @param nodes the maximum number of moves to examine, 0 for no limit
+     */
+    public void setNodeLimit(long nodes) {
+        nodeLimit = nodes;
+    }
+
+
+    /**
+     * Replace the evaluation cache with an empty one of about the given size.
+     * This must not be called while a search is running.
+     *
+     * @param megabytes the size of the cache in megabytes
+     */
+    public void setEvalCacheSize(int megabytes) {
+        evalCache = new LiteEvalCache(megabytes);
+    }
+
+
+    /**
+     * Run the searches of this object on a pool of its own instead of the shared
+     * search pool in LiteExecutors, so that its search threads don't compete with
+     * those of other searches running at the same time.
+     *
+     * @param pool the pool to search on or null to use the shared search pool
+     */
+    public void setSearchPool(ForkJoinPool pool) {
+        searchPool = pool;
+    }
+
+
+    /**
+     * Play moves from an opening book while it has them instead of searching.
+     *
+     * @param book the book to play from or null to always search
+     */
+    public void setBook(PolyglotBook book) {
+        this.book = book;
     }
 
 
@@ -338,7 +505,15 @@ public class LiteMinimax implements Serializable {
         seconds = (int) gameDuration;
 
         int totalCaches = 2 * cachedMoves.size();
-        long totalMapChecks = cachedMoves.numCacheHits + cachedMoves.numCacheMisses;
+        long numCacheHits = cachedMoves.numCacheHits.sum();
+        long numCacheMisses = cachedMoves.numCacheMisses.sum();
+        long totalMapChecks = numCacheHits + numCacheMisses;
+
+        long numEvalHits = evalCache.numHits.sum();
+        long numEvalChecks = numEvalHits + evalCache.numMisses.sum();
+
+        long numPawnHits = LitePawnEval.numHits.sum();
+        long numPawnChecks = numPawnHits + LitePawnEval.numMisses.sum();
 
         Main.setLogLevel(Main.LogLevel.DEBUG);
 
@@ -350,20 +525,30 @@ public class LiteMinimax implements Serializable {
                 (board == null) ? "" : String.format("Turn: %d", board.turns),
                 "",
                 String.format("Total Boards stored in Cache:      %,14d", cachedMoves.size()),
-                String.format("Max Boards stored in Cache:        %,14d", cachedMoves.maxMovesCached),
+                String.format("Max Boards stored in Cache:        %,14d", cachedMoves.getMaxMovesCached()),
                 String.format("Total Moves in Cache:              %,14d", totalCaches),
                 "",
-                String.format("Number Cached Moves Offered:       %,14d", cachedMoves.numMovesOffered),
-                String.format("Number Cached Moves Added:         %,14d", cachedMoves.numMovesCached),
-                String.format("Number of times Replaced Existing: %,14d", cachedMoves.numMovesUpdated),
+                String.format("Number Cached Moves Offered:       %,14d", cachedMoves.numMovesOffered.sum()),
+                String.format("Number Cached Moves Added:         %,14d", cachedMoves.numMovesCached.sum()),
+                String.format("Number of times Replaced Existing: %,14d", cachedMoves.numMovesUpdated.sum()),
                 "",
                 String.format("Number of Total Cache Checks:      %,14d", totalMapChecks),
-                String.format("Number of Cache hits:              %,14d", cachedMoves.numCacheHits),
-                String.format("Number Cache misses:               %,14d", cachedMoves.numCacheMisses),
-                String.format("Number of Saved Move examinations: %,14d", cachedMoves.numExaminationsSaved),
+                String.format("Number of Cache hits:              %,14d", numCacheHits),
+                String.format("Number Cache misses:               %,14d", numCacheMisses),
+                String.format("Number of Saved Move examinations: %,14d", cachedMoves.numExaminationsSaved.sum()),
+                "",
+                String.format("Number time Ran Anyway:            %,14d", cachedMoves.numMovesTested.sum()),
+                String.format("Number Ran Anyway Better:          %,14d", cachedMoves.numMovesImproved.sum()),
+                "",
+                String.format("Eval Cache Lookups:                %,14d", numEvalChecks),
+                String.format("Eval Cache Hit Rate:               %13.1f%%",
+                        (numEvalChecks == 0) ? 0.0 : numEvalHits * 100.0 / numEvalChecks),
                 "",
-                String.format("Number time Ran Anyway:            %,14d", cachedMoves.numMovesTested),
-                String.format("Number Ran Anyway Better:          %,14d", cachedMoves.numMovesImproved),
+                String.format("Lazy Eval Exits:                   %,14d", LiteEval.numLazyExits.sum()),
+                "",
+                String.format("Pawn Hash Lookups:                 %,14d", numPawnChecks),
+                String.format("Pawn Hash Hit Rate:                %13.1f%%",
+                        (numPawnChecks == 0) ? 0.0 : numPawnHits * 100.0 / numPawnChecks),
                 "",
                 "Minimax Statistics = ");
         Main.log(Main.LogLevel.DEBUG, logLines);
@@ -420,21 +605,37 @@ public class LiteMinimax implements Serializable {
      * be found.
      */
     public Move bestMove(final LiteBoard board, boolean returnImmediate) {
+        // Cancel any existing parent search thread (and its child threads) before we start a new one
+        cancelSearchAndWait();
+
         final int side = board.turn;
         maximize = (side == Side.White);
-        movesProcessed = 0L;
+        movesProcessed.reset();
 
         // Clear the best move we have for this search and set the time limit for them to finish.
-        // If maxSeconds == 0 then the threads ignore the time limit and run to completion.
-        searchTimeLimit = (maxSeconds == 0) ? 0 : System.nanoTime() + (maxSeconds * 1_000_000_000L);
+        // If there is no time limit then the threads run to completion.
+        searchTimeLimit = (maxMillis == 0) ? 0 : System.nanoTime() + (maxMillis * 1_000_000L);
         best = new BestMove(maximize);
+        stopSearch = false;
+
+        searchBoard = board;
+        searchStart = System.nanoTime();
+        selDepth = 1;
 
+        // A search that may be stopped before it gets to the full depth goes one ply deeper at
+        // a time so it always has the move of a depth that was searched to the end to play
+        boolean deepen = deepening || searchTimeLimit > 0 || nodeLimit > 0;
+        searchDepth = deepen ? 1 : startDepth;
+        nextInfoTime.set(searchStart + infoInterval * 1_000_000L);
+
+        board.ensureMoves1();
         if (board.numMoves1 == 1) {
             // We have only one move so nothing the other side can do in response will change
             // what move we make so just return it now and save the recursive depth cost.
             addNumMovesExamined(1);
             best.move = board.moves1[0];
             best.value = board.moves1[0].getValue();
+            publishInfo(true);
             return board.moves1[0];
         }
 
@@ -444,6 +645,18 @@ public class LiteMinimax implements Serializable {
             return null;
         }
 
+        // Play a book move if there is one before going to the trouble of starting a search
+        if (book != null) {
+            Move move = book.pick(board);
+            if (move != null) {
+                addNumMovesExamined(1);
+                best.move = move;
+                best.value = LiteEval.evaluate(board);
+                publishInfo(true);
+                return move;
+            }
+        }
+
         // create a map of the pieces on the board by side, and then by type, and then their locations
         SidePieceMap piecesOurs = new SidePieceMap();
         SidePieceMap piecesTheirs = new SidePieceMap();
@@ -457,15 +670,15 @@ public class LiteMinimax implements Serializable {
 
         // If threads are not enabled then we search here and now on the current thread:
         if (!Main.useThreads) {
-            return searchWithNoThreads(board, pieceMap);
+            Move move = searchDeeper(board, pieceMap, searchWithNoThreads(board, pieceMap));
+            publishInfo(true);
+            return move;
         }
 
         initThreadSupport();
 
-        // Cancel any existing parent search thread (and its child threads) before we start a new one
-        cancelSearchAndWait();
-
         // Start the search threads, one for each one of our moves:
+        searchFinished = new CountDownLatch(1);
         launchMoveThreads(board);
 
         // Now that we have started threads exploring all moves available for the current
@@ -483,6 +696,41 @@ public class LiteMinimax implements Serializable {
     }
 
 
+    /**
+     * Search the board again one ply deeper at a time until the search depth is reached
+     * or the search is stopped.  A depth the search is stopped part way through is thrown
+     * away, since the moves it did finish can't be trusted over the last full depth's.
+     *
+     * @param board    the board state the search is for
+     * @param pieceMap board pieces mapped by type and side
+     * @param move     the best move found at the depth searched so far
+     * @return the best move of the deepest depth that was searched to the end
+     */
+    private Move searchDeeper(final LiteBoard board, PieceMap pieceMap, Move move) {
+        while (move != null && searchDepth < startDepth && !stopSearch) {
+            BestMove finished = best;
+            searchDepth++;
+            best = new BestMove(maximize);
+
+            Move deeper;
+            if (Main.useThreads) {
+                launchMoveThreads(board);
+                deeper = gatherSearchResults(board, pieceMap);
+            } else {
+                deeper = searchWithNoThreads(board, pieceMap);
+            }
+
+            if (stopSearch) {
+                searchDepth--;
+                best = finished;
+                return move;
+            }
+            move = deeper;
+        }
+        return move;
+    }
+
+
     /**
      * Iterate over all available moves for the current player and decide which move is the best.
      * This executes on the current thread and is a blocking call.
@@ -496,7 +744,7 @@ public class LiteMinimax implements Serializable {
 
         for (int index = 0; index < board.numMoves1; index++) {
             Move move = board.moves1[index];
-            LiteBoard currentBoard = new LiteBoard(board);
+            LiteBoard currentBoard = new LiteBoard(board, false);
             currentBoard.executeMove(move);
             currentBoard.advanceTurn();
 
@@ -515,14 +763,30 @@ public class LiteMinimax implements Serializable {
                 }
             }
 
+            // the move just made is the first ply, as it is for the root moves' search threads
             int lookAheadVal = minmax(currentBoard, LiteUtil.MIN_VALUE, LiteUtil.MAX_VALUE,
-                    startDepth, !maximize);
+                    searchDepth - 1, !maximize);
+
+            // a move whose search was cut off can't be compared with the ones searched to the
+            // end; it is only played if the search was stopped before any move finished
+            if (stopSearch) {
+                if (best.move == null) {
+                    best.value = lookAheadVal;
+                    best.move = move;
+                    best.move.setValue(best.value);
+                    publishInfo(false);
+                }
+                break;
+            }
 
             if ((maximize && lookAheadVal > best.value) || (!maximize && lookAheadVal < best.value)) {
                 best.value = lookAheadVal;
                 best.move = move;
                 best.move.setValue(best.value);
-                cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                if (cachingResults()) {
+                    cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                }
+                publishInfo(false);
             }
 
             // Check for specific corner cases when we might want to make
@@ -533,7 +797,7 @@ public class LiteMinimax implements Serializable {
                 best.move.setValue(best.value);
             }
 
-            if (best.move != null) {
+            if (best.move != null && cachingResults()) {
                 cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
             }
         }
@@ -541,19 +805,22 @@ public class LiteMinimax implements Serializable {
     }
 
     /**
-     * Launch a separate thread for each move available to the current player to move.
-     * All threads are stored in the threadStack[] array with numThreads threads in it.
+     * Launch a separate task for each move available to the current player to move.
+     * All tasks are submitted to the shared search pool and are stored in the threadStack[]
+     * array with numThreads tasks in it.
      *
      * @param board the board to find the best move on.
      */
     private void launchMoveThreads(final LiteBoard board) {
         // Loop through all of the moves available to the current player and launch a
-        // thread for each one so each can go explore what good board valuations we
+        // task for each one so each can go explore what good board valuations we
         // have in the future of this move and keep track of the best one
         //
-        threadStack = new FutureTask[board.numMoves1];
+        threadStack = new ForkJoinTask[board.numMoves1];
         numThreads = 0;
 
+        ForkJoinPool pool = (searchPool != null) ? searchPool : LiteExecutors.getSearchPool();
+
         for (int i = 0; i < board.numMoves1; i++) {
             Move move = board.moves1[i];
 
@@ -572,15 +839,13 @@ public class LiteMinimax implements Serializable {
             }
 
             // Create a Futures object to represent the eventual result of the move we give it to explore
-            LiteMoveThread lookAheadThread = new LiteMoveThread(board, this, maximize, move, startDepth);
+            LiteMoveThread lookAheadThread = new LiteMoveThread(board, this, maximize, move, searchDepth);
 
-            // Create a background thread for this move search and start it
-            FutureTask<BestMove> task = new FutureTask<>(lookAheadThread);
-            threadStack[numThreads++] = task;
+            // Hand this move search to the pool where it waits its turn if all of the workers
+            // are busy.  Its subtree splits further into stealable tasks at each node once the
+            // eldest move there has been searched.
+            threadStack[numThreads++] = pool.submit(lookAheadThread);
             maxThreads = Integer.max(maxThreads, numThreads);
-            Thread t = new Thread(task);
-            t.setName(String.format("Turn-%03d:Move-%02d", board.turns, numThreads));
-            t.start();
         }
     }
 
@@ -592,8 +857,30 @@ public class LiteMinimax implements Serializable {
      * @return the best move found for this board state or null if no legal move was found
      */
     private Move finishCurrentSearch(final LiteBoard board, PieceMap pieceMap) {
+        try {
+            return searchDeeper(board, pieceMap, gatherSearchResults(board, pieceMap));
+        } finally {
+            // let the listeners and anyone waiting on this search know it is done
+            publishInfo(true);
+            searchFinished.countDown();
+        }
+    }
+
+    /**
+     * Wait on each of the move threads of the current search in turn and keep the best result.
+     *
+     * @param board the board state the search is for
+     * @param pieceMap board pieces mapped by type and side
+     * @return the best move found for this board state or null if no legal move was found
+     */
+    private Move gatherSearchResults(final LiteBoard board, PieceMap pieceMap) {
         // Now we wait on all of the threads to finish so we can see which has the best score
 
+        // The best of the moves whose search was stopped before it finished.  Their values
+        // only cover the part of the tree that was searched so they aren't compared with
+        // the moves that were searched to the end, and one is only played if none were.
+        BestMove stoppedBest = new BestMove(maximize);
+
         for (int index=0; index < numThreads; index++) {
             BestMove threadResult;
 
@@ -626,12 +913,23 @@ public class LiteMinimax implements Serializable {
             // move we keep, it still examined those moves and their results):
             addNumMovesExamined(threadResult.movesExamined);
 
+            if (threadResult.stopped) {
+                if (stoppedBest.move == null || (maximize && threadResult.value > stoppedBest.value)
+                        || (!maximize && threadResult.value < stoppedBest.value)) {
+                    stoppedBest = threadResult;
+                }
+                continue;
+            }
+
             // See if the results of this thread's search are a better move than
             // we have so far and keep it if so:
             //
             if ((maximize && threadResult.value >= best.value) || (!maximize && threadResult.value <= best.value)) {
                 best = threadResult;
-                cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                if (cachingResults()) {
+                    cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                }
+                publishInfo(false);
             }
 
             // play nice with the other processes on this cpu
@@ -643,7 +941,9 @@ public class LiteMinimax implements Serializable {
             if (check != null) {
                 best.move = check;
                 best.value = check.getValue();
-                cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                if (cachingResults()) {
+                    cachedMoves.addMoveValue(board.board, maximize, best.move, best.value, best.movesExamined);
+                }
             }
         }
 
@@ -652,6 +952,11 @@ public class LiteMinimax implements Serializable {
         // to suggest for this board it should have been set in the loop above as it
         // examined each search thread's results
 
+        if (best.move == null && stoppedBest.move != null) {
+            best = stoppedBest;
+            publishInfo(false);
+        }
+
         // Return the best move found for this board setup:
         return best.move;
     }
@@ -660,29 +965,45 @@ public class LiteMinimax implements Serializable {
     /**
      * Cancel any background search threads that may be still
      * running from any last search we may have started
+     *
+     * @param wait the maximum number of milliseconds to wait for them to stop
      */
     public void cancelThreadStack(int wait) {
         if (threadStack == null) return;
-        searchTimeLimit = System.nanoTime();
+        cancelSearch(wait);
+    }
+
+    /**
+     * Tell the current search to stop and wait for its threads to unwind.  The search
+     * threads see the stop request within a few nodes and return what they have found
+     * so far, so this returns as soon as they are done rather than after a fixed delay.
+     *
+     * @param timeoutMillis the maximum number of milliseconds to wait, 0 to wait as long as it takes
+     * @return true if the search is finished, false if it is still running after the timeout
+     */
+    public boolean cancelSearch(long timeoutMillis) {
+        stopSearch = true;
+
+        CountDownLatch finished = searchFinished;
+        if (finished == null) return true;
+
         try {
-            Thread.sleep(wait);
+            if (timeoutMillis == 0) {
+                finished.await();
+                return true;
+            }
+            return finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     private void cancelSearchAndWait() {
         if (currentSearch != null) {
-            searchTimeLimit = System.nanoTime();
-            boolean completed = moveSearchIsDone();
-            while (!completed) {
-                try {
-                    Thread.sleep(1);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-                completed = moveSearchIsDone();
-            }
+            // The results of a cancelled search are of no use to the new one so
+            // don't gather them, just wait for its threads to finish
+            cancelSearch(0);
             currentSearch = null;
             threadStack = null;
             numThreads = 0;
@@ -708,6 +1029,7 @@ public class LiteMinimax implements Serializable {
         //
         // Map our moves by type
         //
+        board.ensureMoves2();
         Map<Integer, List<Move>> ourMoveMap = mapMovesByType(board, board.moves1, board.numMoves1);
 
         BiPredicate<Integer, List<Move>> pawnIsBlocked =
@@ -727,36 +1049,15 @@ public class LiteMinimax implements Serializable {
                 };
 
         SidePieceMap ourPieces = pieceMap.get(board.turn);
-        SidePieceMap theirPieces = pieceMap.get((board.turn + 1) % 2);
-
-        Stream<SidePieceMap> ourPieceStream = Stream.of(ourPieces);
 
-        int totalPieces = ourPieceStream.flatMap(s -> s.values().stream())
-                .reduce(0, (sum, list) -> sum + list.size(), Integer::sum);
-
-        boolean tryAPawn = false;
-        if (totalPieces - ourPieces.get(LiteBoard.Pawn).size() < 4) {
-            if (!board.kingInCheck(board.turn)) {
-                tryAPawn = true;
-            }
-        }
-
-        boolean endRepetition = false;
-        if (bestMove != null && board.checkDrawByRepetition(bestMove, 2)) {
-            endRepetition = true;
-        }
+        // Pushing pawns in the end game and walking the king to the center are
+        // left to the endgame piece-square tables in LiteEval.
 
         // If we are getting repetitive and possibly stuck at a local maxima then
         // see if we have any possible pawn advances available and pick one
         // of those instead
-        if (tryAPawn || endRepetition) {
-
-            if (endRepetition) {
-                printMsg("Attempting to end repetition..");
-            }
-            if (tryAPawn) {
-                printMsg("looking at pawn strategy..");
-            }
+        if (bestMove != null && board.checkDrawByRepetition(bestMove, 2)) {
+            printMsg("Attempting to end repetition..");
 
             // see if we have any pawn moves
             if (ourMoveMap.get(LiteBoard.Pawn).size() > 0) {
@@ -815,56 +1116,6 @@ public class LiteMinimax implements Serializable {
             return null;
         }
 
-        int bestNdx = bestMove.getFrom();
-
-        // Additional corner-case:
-        // If the best move we think we have is the king and we are not in check:
-        //     Check to see if we have any pawn moves left and use one of those
-        //     to see if it can get promoted before we move this king
-
-        // Only do this if we are not in check:
-        if (!board.kingInCheck(board.turn)) {
-            if (board.getType(bestNdx) == LiteBoard.King) {
-                // See if all we have left are pawn and king moves
-                if (ourMoveMap.get(LiteBoard.Rook).size() == 0 &&
-                        ourMoveMap.get(LiteBoard.Queen).size() == 0) {
-                    if (ourMoveMap.get(LiteBoard.Pawn).size() > 0) {
-                        return ourMoveMap.get(LiteBoard.Pawn).get(0);
-                    }
-
-                    // see if we have any pawns at all
-                    PieceList ourPawns = ourPieces.get(LiteBoard.Pawn);
-                    if (!ourPawns.isEmpty()) {
-                        // See which of them are blocked
-                        for (int ndx = 0; ndx < ourPawns.size(); ndx++) {
-                            int location = ourPawns.get(ndx);
-                            if (pawnIsBlocked.test(location, ourMoveMap.get(LiteBoard.Pawn))) {
-                                // This pawn has no moves but it isn't on the last row, so it is
-                                // blocked by another piece.  See if that piece is ours
-                                int forward = (board.turn == Side.Black) ? 1 : -1;
-                                int spotInFront = ((location % 8) + ((location / 8) + forward) * 8);
-                                if (board.getSide(spotInFront) == board.turn) {
-                                    // The piece in the way is ours.  See if it can move
-                                    int typeOfPieceInTheWay = board.getType(spotInFront);
-                                    if (typeOfPieceInTheWay == LiteBoard.Empty) {
-                                        // FixMe!
-                                        break;
-                                    }
-                                    for (Move move : ourMoveMap.get(typeOfPieceInTheWay)) {
-                                        if (move.getFrom() == spotInFront) {
-                                            // the piece in the way of our pawn has moves. Choose one
-                                            // to be our next move
-                                            return move;
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
         // See if our opponent only has their king left and get more aggressive if so:
 
         if (!board.kingInCheck(board.turn)) {
@@ -878,31 +1129,25 @@ public class LiteMinimax implements Serializable {
                     theirMoveMap.get(LiteBoard.Queen).size() == 0 &&
                     theirMoveMap.get(LiteBoard.King).size() > 0) {
 
-                // if we have pawns march them towards the end row
-                if (ourMoveMap.get(LiteBoard.Pawn).size() > 0) {
-                    bestMove = ourMoveMap.get(LiteBoard.Pawn).get(0);
-                } else {
-
-                    // If we have at least one queen and one rook then look further to find a game ending move
-                    if (ourMoveMap.get(LiteBoard.Queen).size() > 0 &&
-                            ourMoveMap.get(LiteBoard.Rook).size() > 0 &&
-                            ourMoveMap.get(LiteBoard.King).size() > 0 &&
-                            startDepth < 3) {
-
-                        // Extend the depth and search again for a game ending move
-                        startDepth = 3;
-                        printMsg("Looking for game-ending moves...");
-
-                    } else if ((ourMoveMap.get(LiteBoard.Queen).size() > 0)
-                            || (ourMoveMap.get(LiteBoard.Rook).size() > 0) &&
-                            ourMoveMap.get(LiteBoard.King).size() > 0 &&
-                            startDepth < 4) {
-
-                        // We have (at minimum) a queen or a rook along with our king so we should
-                        // be able to back them into a corner if we search even further ahead..
-                        startDepth = 4;
-                        printMsg("Looking even further for a game ending move..");
-                    }
+                // If we have at least one queen and one rook then look further to find a game ending move
+                if (ourMoveMap.get(LiteBoard.Queen).size() > 0 &&
+                        ourMoveMap.get(LiteBoard.Rook).size() > 0 &&
+                        ourMoveMap.get(LiteBoard.King).size() > 0 &&
+                        startDepth < 3) {
+
+                    // Extend the depth and search again for a game ending move
+                    startDepth = 3;
+                    printMsg("Looking for game-ending moves...");
+
+                } else if ((ourMoveMap.get(LiteBoard.Queen).size() > 0)
+                        || (ourMoveMap.get(LiteBoard.Rook).size() > 0) &&
+                        ourMoveMap.get(LiteBoard.King).size() > 0 &&
+                        startDepth < 4) {
+
+                    // We have (at minimum) a queen or a rook along with our king so we should
+                    // be able to back them into a corner if we search even further ahead..
+                    startDepth = 4;
+                    printMsg("Looking even further for a game ending move..");
                 }
             }
         }
@@ -979,10 +1224,7 @@ public class LiteMinimax implements Serializable {
      */
     int minmax(final LiteBoard origBoard, int alpha, int beta, int depth, boolean maximize) {
         BestMove mmBest = new BestMove(maximize);
-        int lookAheadValue = 0;
-        int cachedValue = 0;
-        boolean gotCacheHit;
-        BestMove check;
+        int lookAheadValue;
 
         if (throttle > 0) {
             try {
@@ -992,6 +1234,7 @@ public class LiteMinimax implements Serializable {
             }
         }
 
+        origBoard.ensureMoves1();
         for (int i = 0; i < origBoard.numMoves1; i++) {
             // Get the next move available for this board and this player
             Move move = origBoard.moves1[i];
@@ -1005,81 +1248,28 @@ public class LiteMinimax implements Serializable {
             // This is known as quiescent searching.
 
             if (depth <= 0) {
-                if ((move.getValue() == 0) || depth < -2) {
+                if ((move.getValue() == 0) || depth < -QUIESCENCE_DEPTH) {
                     addNumMovesExamined(mmBest.movesExamined);
-                    return LiteEval.evaluate(origBoard);
+                    return evalCache.evaluate(origBoard, alpha, beta);
                 }
             }
 
             ///////////////////////////////////////////////////////////////////
-            // Before we try to find our own best move for this board state, see
-            // if one is already cached:
-
-            gotCacheHit = false;
-            check = null;
-
-            if (origBoard.numPieces1 > 5) {     // we force moves to be manually evaluated via minmax when we get down to the end game
-                check = cachedMoves.lookupBestMove(origBoard.board, maximize);
-            }
-
-            if (check != null) {
-                if (check.move != null) {
-                    gotCacheHit = true;
-                    cachedValue = check.value;
-                    lookAheadValue = check.value;
-                } else {
-                    check = null;
-                }
-            }
+            // Young Brothers Wait: the eldest move has been searched on its own and
+            // did not cut this node off, so the younger brothers are now worth
+            // searching in parallel.  Hand them to the pool where idle workers
+            // can steal them.
 
-            if (check != null) {
-                double moveRisk = cachedMoves.getMoveRisk(origBoard.board);
-                if (moveRisk > acceptableRiskLevel) {
-                    // The risk is too high so we will do this manually and increase the count
-                    // of how many times we have rechecked this move for this board
-                    cachedMoves.increaseMoveUsedCount(origBoard.board);
-                    check = null;
-                }
+            if (i == 1 && depth >= MIN_SPLIT_DEPTH && ForkJoinTask.inForkJoinPool()) {
+                return searchYoungerBrothers(origBoard, alpha, beta, depth, maximize, mmBest);
             }
 
-            if (check == null) {
-                LiteBoard currentBoard = new LiteBoard(origBoard);
-                currentBoard.executeMove(move);
-                currentBoard.advanceTurn();
-                mmBest.movesExamined++;
-
-                // See if the move we just made leaves the other player with no moves
-                // and if so, return it as the best value we'll ever see on this search:
-                if (currentBoard.numMoves1 == 0) {
-                    mmBest.move = move;
-                    mmBest.value = maximize ?
-                            LiteUtil.MAX_VALUE - (100 - depth) :
-                            LiteUtil.MIN_VALUE + (100 - depth);
-                    break;
-                }
-
-                Thread.yield();
-
-                // The recursive minimax step
-                // While we have the depth keep looking ahead to see what this move accomplishes
-                lookAheadValue = minmax(currentBoard, alpha, beta, depth - 1, !maximize);
-
-                // See if this move is better than any we've seen for this board:
-                //
-                if ((!maximize && lookAheadValue < mmBest.value) || (maximize && lookAheadValue > mmBest.value)) {
-                    mmBest.value = lookAheadValue;
-                    mmBest.move = move;
-
-                    cachedMoves.addMoveValue(origBoard.board, maximize, move, lookAheadValue, mmBest.movesExamined);
-                }
+            lookAheadValue = searchMove(origBoard, move, alpha, beta, depth, maximize, mmBest);
 
-                // See if we had a cache hit but ran it anyway, and whether this improved the existing move
-                if (((maximize && lookAheadValue > cachedValue) || (!maximize && lookAheadValue < cachedValue)) &&
-                        gotCacheHit) {
-                    cachedMoves.increaseMoveImprovedCount(origBoard.board);
-                }
-            } else {
-                mmBest.movesExamined += check.movesExamined;
+            // A move that leaves the other player with no moves is the best value
+            // we'll ever see on this search:
+            if (mmBest.noReplies) {
+                break;
             }
 
             // The alpha-beta pruning step
@@ -1096,7 +1286,7 @@ public class LiteMinimax implements Serializable {
             }
 
             // If we are out of time then return the best outcome we've seen this move and thread accomplish so far
-            if (searchTimeLimit > 0 && System.nanoTime() >= searchTimeLimit) {
+            if (isStopped()) {
                 break;
             }
 
@@ -1110,34 +1300,280 @@ public class LiteMinimax implements Serializable {
     }
 
 
+    /**
+     * Examine one move available on a board state, either by using a cached best move for
+     * the board or by making the move and recursively searching the responses to it.
+     *
+     * @param origBoard the board state the move is made on
+     * @param move      the move to examine
+     * @param alpha     the lower bounds of the best move and score found so far
+     * @param beta      the upper bounds of the best move and score found so far
+     * @param depth     the number of turns left to search ahead
+     * @param maximize  true if we are looking for a board state with the maximum score
+     * @param mmBest    the best move seen so far on this board.  Updated if this move is better.
+     * @return the value of the move
+     */
+    int searchMove(final LiteBoard origBoard, final Move move, int alpha, int beta, int depth,
+                   boolean maximize, BestMove mmBest) {
+        int lookAheadValue = 0;
+        int cachedValue = 0;
+        boolean gotCacheHit = false;
+        BestMove check = null;
+
+        ///////////////////////////////////////////////////////////////////
+        // Before we try to find our own best move for this board state, see
+        // if one is already cached:
+
+        if (origBoard.numPieces1 > 5) {     // we force moves to be manually evaluated via minmax when we get down to the end game
+            check = cachedMoves.lookupBestMove(origBoard.board, maximize);
+        }
+
+        if (check != null) {
+            if (check.move != null) {
+                gotCacheHit = true;
+                cachedValue = check.value;
+                lookAheadValue = check.value;
+            } else {
+                check = null;
+            }
+        }
+
+        if (check != null) {
+            double moveRisk = cachedMoves.getMoveRisk(origBoard.board);
+            if (moveRisk > acceptableRiskLevel) {
+                // The risk is too high so we will do this manually and increase the count
+                // of how many times we have rechecked this move for this board
+                cachedMoves.increaseMoveUsedCount(origBoard.board);
+                check = null;
+            }
+        }
+
+        if (check != null) {
+            mmBest.movesExamined += check.movesExamined;
+            return lookAheadValue;
+        }
+
+        LiteBoard currentBoard = new LiteBoard(origBoard, false);
+        currentBoard.executeMove(move);
+        currentBoard.advanceTurn();
+        currentBoard.ensureMoves1();
+        mmBest.movesExamined++;
+
+        // the move we just made is at this ply from the root; keep the deepest one seen
+        int ply = searchDepth - depth + 1;
+        if (ply > selDepth) {
+            selDepth = ply;
+        }
+
+        // See if the move we just made leaves the other player with no moves
+        // and if so, return it as the best value we'll ever see on this search:
+        if (currentBoard.numMoves1 == 0) {
+            mmBest.move = move;
+            mmBest.value = mateValue(depth, maximize);
+            mmBest.noReplies = true;
+            return mmBest.value;
+        }
+
+        Thread.yield();
+
+        // The recursive minimax step
+        // While we have the depth keep looking ahead to see what this move accomplishes
+        lookAheadValue = minmax(currentBoard, alpha, beta, depth - 1, !maximize);
+
+        // See if this move is better than any we've seen for this board:
+        //
+        if ((!maximize && lookAheadValue < mmBest.value) || (maximize && lookAheadValue > mmBest.value)) {
+            mmBest.value = lookAheadValue;
+            mmBest.move = move;
+
+            if (cachingResults()) {
+                cachedMoves.addMoveValue(origBoard.board, maximize, move, lookAheadValue, mmBest.movesExamined);
+            }
+        }
+
+        // See if we had a cache hit but ran it anyway, and whether this improved the existing move
+        if (((maximize && lookAheadValue > cachedValue) || (!maximize && lookAheadValue < cachedValue)) &&
+                gotCacheHit) {
+            cachedMoves.increaseMoveImprovedCount(origBoard.board);
+        }
+
+        return lookAheadValue;
+    }
+
+
+    /**
+     * Search all but the eldest move on a board state in parallel.  Each younger move
+     * becomes its own fork/join task sharing one split point so that the alpha-beta
+     * window found by any of them tightens the window of those that start after it.
+     * This executes on a fork/join worker thread and joins (helping with the work)
+     * until all of the brothers are done.
+     *
+     * @param origBoard the board state to examine the younger moves on
+     * @param alpha     the lower bounds after the eldest move was searched
+     * @param beta      the upper bounds after the eldest move was searched
+     * @param depth     the number of turns left to search ahead
+     * @param maximize  true if we are looking for a board state with the maximum score
+     * @param eldest    the result of searching the eldest move
+     * @return the best score of all of the moves on this board
+     */
+    private int searchYoungerBrothers(final LiteBoard origBoard, int alpha, int beta, int depth,
+                                      boolean maximize, final BestMove eldest) {
+        LiteSplitPoint splitPoint = new LiteSplitPoint(alpha, beta, maximize, eldest);
+
+        List<LiteBrotherTask> brothers = new ArrayList<>(origBoard.numMoves1 - 1);
+        for (int i = 1; i < origBoard.numMoves1; i++) {
+            brothers.add(new LiteBrotherTask(this, splitPoint, origBoard, origBoard.moves1[i], depth, maximize));
+        }
+        ForkJoinTask.invokeAll(brothers);
+
+        addNumMovesExamined(eldest.movesExamined + splitPoint.getMovesExamined());
+        return splitPoint.getValue();
+    }
+
+
+    /**
+     * The value of a move that leaves the other player with no moves at the given depth.
+     * Sooner is better so the deeper we are in the search the less it is worth.
+     */
+    private static int mateValue(int depth, boolean maximize) {
+        return maximize ?
+                LiteUtil.MAX_VALUE - (100 - depth) :
+                LiteUtil.MIN_VALUE + (100 - depth);
+    }
+
+
+    /**
+     * See if the current search has been told to stop, either because it was cancelled
+     * or because its time or node limit (if any) has passed.  The search threads call
+     * this at every node so it only looks at the clock and the node count every
+     * STOP_CHECK_INTERVAL calls.  Each thread keeps its own count so no thread can go
+     * without looking however many threads are searching.
+     * <p>
+     * The same look at the clock sends the search listeners their progress snapshot
+     * when one is due.  Only the thread that wins the update of the next due time
+     * sends it.
+     *
+     * @return true if the search threads should unwind and return what they have so far
+     */
+    boolean isStopped() {
+        if (stopSearch) return true;
+
+        boolean listening = !searchListeners.isEmpty();
+        if ((searchTimeLimit > 0 || nodeLimit > 0 || listening) && (++stopCheckCount.get()[0] % STOP_CHECK_INTERVAL) == 0) {
+            long now = System.nanoTime();
+            if (searchTimeLimit > 0 && now >= searchTimeLimit) {
+                stopSearch = true;
+            }
+            if (nodeLimit > 0 && movesProcessed.sum() >= nodeLimit) {
+                stopSearch = true;
+            }
+            long due = nextInfoTime.get();
+            if (listening && now >= due && nextInfoTime.compareAndSet(due, now + infoInterval * 1_000_000L)) {
+                publishInfo(false);
+            }
+        }
+        return stopSearch;
+    }
+
+
+    /**
+     * Tell whether the values the current search finds are worth keeping in the move
+     * cache.  Those of a search that was stopped or of a depth short of the search depth
+     * aren't, since the cache doesn't know the depth and later searches would take them
+     * for values of the full depth.
+     *
+     * @return true if the values found now can be added to the move cache
+     */
+    boolean cachingResults() {
+        return !stopSearch && searchDepth >= startDepth;
+    }
+
+
+    /**
+     * Tell whether the current search has been told to stop, without checking the
+     * clock or the node count the way {@link #isStopped()} does.
+     *
+     * @return true if a search that returns now may not have finished
+     */
+    boolean wasStopped() {
+        return stopSearch;
+    }
+
+
+    /**
+     * Send a snapshot of the progress of the current search to the search listeners.
+     *
+     * @param finished true if this is the last snapshot of the search
+     */
+    private void publishInfo(boolean finished) {
+        LiteBoard board = searchBoard;
+        if (searchListeners.isEmpty() || board == null) return;
+
+        BestMove current = best;
+        Move move = (current == null) ? null : current.move;
+        int value = (current == null) ? 0 : current.value;
+
+        LiteSearchInfo info = new LiteSearchInfo(new LiteBoard(board), searchDepth, selDepth,
+                movesProcessed.sum(), (System.nanoTime() - searchStart) / 1_000_000L,
+                evalCache.permilleFull(), value, principalVariation(board, move), finished);
+
+        for (Consumer<LiteSearchInfo> listener : searchListeners) {
+            listener.accept(info);
+        }
+    }
+
+
+    /**
+     * Follow the best moves stored in the move cache from a board to get the line of
+     * play the search expects.  The line stops at the first board the cache has no
+     * move for or whose cached move isn't legal there (the cache is keyed by the piece
+     * arrangement only so it can hold a move from some other game).
+     *
+     * @param root  the board the search is for
+     * @param first the best move found on the root board or null
+     * @return the moves of the expected line, at most the search depth of them
+     */
+    private Move[] principalVariation(final LiteBoard root, Move first) {
+        List<Move> line = new ArrayList<>();
+        LiteBoard board = new LiteBoard(root, false);
+        boolean side = (board.turn == Side.White);
+        Move move = first;
+
+        while (move != null && line.size() < Integer.max(1, searchDepth)) {
+            board.ensureMoves1();
+            if (!Arrays.asList(board.moves1).subList(0, board.numMoves1).contains(move)) {
+                break;
+            }
+            line.add(move);
+            board.executeMove(move);
+            board.advanceTurn();
+            side = !side;
+
+            BestMove next = cachedMoves.peekBestMove(board.board, side);
+            move = (next == null) ? null : next.move;
+        }
+        return line.toArray(new Move[0]);
+    }
+
+
     /**
      * Called when our object is being torn down.
      * Originally written to ensure all threads were collected
-     * and finalised if the program was exiting.  It would seem
-     * now that the program does fine on cleaning them all up
-     * without this method needing to be specifically called.
+     * and finalised if the program was exiting.  The worker threads
+     * belong to the shared search pool in LiteExecutors and outlive
+     * us so only our own background search thread is stopped here.
      * <p>
      * May be deprecated in the future.
      *
      * @throws IOException
      */
     public void close() throws IOException {
+        if (executorForMainSearch == null) return;
+
         // Disable new tasks from being submitted
-        pool.shutdown();
         executorForMainSearch.shutdown();
 
         try {
-            // Wait a while for existing tasks to terminate
-            if (!pool.awaitTermination(5, TimeUnit.SECONDS)) {
-                // Cancel currently executing tasks
-                pool.shutdownNow();
-
-                // Wait a while for tasks to respond to being cancelled
-                if (!pool.awaitTermination(5, TimeUnit.SECONDS))
-                    System.err.println("some look-ahead threads did not terminate");
-            }
-
-            // same for the other executor:
             // Wait a while for existing tasks to terminate
             if (!executorForMainSearch.awaitTermination(5, TimeUnit.SECONDS)) {
                 // Cancel currently executing tasks
@@ -1149,8 +1585,7 @@ public class LiteMinimax implements Serializable {
             }
         } catch (InterruptedException ie) {
             // (Re-)Cancel if current thread also interrupted
-            pool.shutdownNow();
-            executorForMainSearch.shutdown();
+            executorForMainSearch.shutdownNow();
 
             // Preserve interrupt status
 //          Thread.currentThread().interrupt();
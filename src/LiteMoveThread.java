@@ -22,7 +22,7 @@ public class LiteMoveThread implements Callable<BestMove> {
         this.depth = depth;
         this.move = move;
 
-        this.board = new LiteBoard(orig);
+        this.board = new LiteBoard(orig, false);
         this.board.executeMove(move);
         this.board.advanceTurn();
         this.minimax.addNumMovesExamined(1);
@@ -31,16 +31,24 @@ public class LiteMoveThread implements Callable<BestMove> {
     // This call is made to us when we are launched
     @Override
     public BestMove call() {
+        // If the search was stopped before we got a turn on a worker thread then we have nothing to offer
+        if (minimax.isStopped()) {
+            return best;
+        }
+
         Thread.yield();
 
         int lookAheadVal = minimax.minmax(board, LiteUtil.MIN_VALUE, LiteUtil.MAX_VALUE,
                 depth - 1, !maximize);
+        best.stopped = minimax.wasStopped();
 
         if ((maximize && lookAheadVal >= best.value) || (!maximize && lookAheadVal <= best.value)) {
             best.value = lookAheadVal;
             best.move = move;
             best.move.setValue(best.value);
-            minimax.cachedMoves.addMoveValue(origBoard.board, maximize, best.move, best.value, 1);
+            if (minimax.cachingResults()) {
+                minimax.cachedMoves.addMoveValue(origBoard.board, maximize, best.move, best.value, 1);
+            }
         }
 
         return best;
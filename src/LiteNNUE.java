@@ -0,0 +1,341 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * The LiteNNUE class is a small efficiently updatable neural network that can be used
+ * to evaluate boards in place of the hand written terms in LiteEval.
+ * <p>
+ * The inputs are HalfKP features: for each side's point of view, the spot of that side's
+ * king together with every other piece on every spot.  Only a few dozen of the 40,960
+ * inputs are ever set so the first layer is kept as two accumulators on the board, one
+ * per point of view, holding the sum of the weights of the inputs that are set.  Making
+ * a move only adds and subtracts the weight columns of the pieces it moves, which the
+ * board does in the same place it updates its other running totals.  Only a king move
+ * changes every input of its own side's point of view so that accumulator is recomputed.
+ * <p>
+ * The accumulators are clipped and fed through two small dense layers to get the score.
+ * Everything is in 16 bit weights and int sums with fixed point shifts between layers.
+ * The loops over the weights are done by a LiteNNUEKernel, with the Vector API when
+ * the jdk.incubator.vector module is present and plain loops when it isn't.
+ * <p>
+ * The weights file is big-endian: the magic number, the hidden, first and second layer
+ * sizes, then each layer's biases followed by its weights.
+ */
+public class LiteNNUE {
+    private static final int MAGIC = 0x4C4E4E31;      // "LNN1"
+
+    // 5 piece types (kings aren't inputs) for each of the 2 sides on each spot, for each king spot
+    private static final int PIECE_INPUTS = 10 * LiteBoard.BOARD_SIZE;
+    public static final int INPUTS = LiteBoard.BOARD_SIZE * PIECE_INPUTS;
+
+    // Each layer's outputs are clipped to 0..CLIP and sums are shifted down by SHIFT
+    private static final int CLIP = 127;
+    private static final int SHIFT = 6;
+
+    // The network in use, or null when LiteEval is doing the evaluation
+    private static LiteNNUE network = null;
+
+    // The inner loops every network runs on
+    private static LiteNNUEKernel kernel = LiteNNUEKernel.load();
+
+    final int hidden;
+    final int size1;
+    final int size2;
+
+    final short[] inputBias;      // [hidden]
+    final short[] inputWeights;   // [INPUTS][hidden]
+    final int[] bias1;            // [size1]
+    final short[] weights1;       // [2 * hidden][size1]
+    final int[] bias2;            // [size2]
+    final short[] weights2;       // [size2][size1]
+    int outputBias;
+    final short[] outputWeights;  // [size2]
+
+    // each search thread's scratch space for the clipped accumulators and the first dense layer's outputs
+    private static class Scratch {
+        final short[] inputs;
+        final int[] layer1;
+
+        Scratch(final int hidden, final int size1) {
+            inputs = new short[2 * hidden];
+            layer1 = new int[size1];
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch;
+
+    LiteNNUE(final int hidden, final int size1, final int size2) {
+        this.hidden = hidden;
+        this.size1 = size1;
+        this.size2 = size2;
+        inputBias = new short[hidden];
+        inputWeights = new short[INPUTS * hidden];
+        bias1 = new int[size1];
+        weights1 = new short[size1 * 2 * hidden];
+        bias2 = new int[size2];
+        weights2 = new short[size2 * size1];
+        outputWeights = new short[size2];
+        scratch = ThreadLocal.withInitial(() -> new Scratch(hidden, size1));
+    }
+
+    /**
+     * Make a network the one that every board made or refreshed from now on keeps
+     * accumulators for and that LiteEval evaluates with.
+     *
+     * @param net the network to use or null to go back to the LiteEval terms
+     */
+    public static void use(final LiteNNUE net) {
+        network = net;
+        LiteEval.setBoardEvaluator((net == null) ? null : net::evaluate);
+    }
+
+    /**
+     * @return the network in use or null if LiteEval is doing the evaluation
+     */
+    public static LiteNNUE getNetwork() {
+        return network;
+    }
+
+    /**
+     * @return the kernel the networks run on
+     */
+    static LiteNNUEKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Run the networks on another kernel, to compare them.  Both kernels give the same
+     * results so this can be done between searches.
+     *
+     * @param k the kernel to use
+     */
+    static void setKernel(final LiteNNUEKernel k) {
+        kernel = k;
+    }
+
+    /**
+     * Load a network from a weights file.
+     *
+     * @param filename the weights file to read
+     * @return the network
+     * @throws IOException if the file can't be read or isn't a weights file
+     */
+    public static LiteNNUE load(final String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(filename + " is not a network weights file");
+            }
+            int hidden = in.readInt();
+            int size1 = in.readInt();
+            int size2 = in.readInt();
+            if (hidden <= 0 || hidden > 1024 || size1 <= 0 || size1 > 1024 || size2 <= 0 || size2 > 1024) {
+                throw new IOException(String.format("%s has bad layer sizes %d, %d, %d", filename, hidden, size1, size2));
+            }
+
+            LiteNNUE net = new LiteNNUE(hidden, size1, size2);
+            readShorts(in, net.inputBias);
+            readShorts(in, net.inputWeights);
+            readInts(in, net.bias1);
+            readShorts(in, net.weights1);
+            readInts(in, net.bias2);
+            readShorts(in, net.weights2);
+            net.outputBias = in.readInt();
+            readShorts(in, net.outputWeights);
+            return net;
+        }
+    }
+
+    /**
+     * Write the network to a weights file that load() can read.
+     *
+     * @param filename the weights file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(final String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(hidden);
+            out.writeInt(size1);
+            out.writeInt(size2);
+            writeShorts(out, inputBias);
+            writeShorts(out, inputWeights);
+            writeInts(out, bias1);
+            writeShorts(out, weights1);
+            writeInts(out, bias2);
+            writeShorts(out, weights2);
+            out.writeInt(outputBias);
+            writeShorts(out, outputWeights);
+        }
+    }
+
+    /**
+     * Make a network with small random weights.  It doesn't play well, but it costs
+     * the same to run as a trained one of the same size so it can be used to measure
+     * speed or as a starting point for training.
+     *
+     * @param hidden the size of each accumulator
+     * @param size1  the size of the first dense layer
+     * @param size2  the size of the second dense layer
+     * @param seed   the seed for the weights
+     * @return the network
+     */
+    public static LiteNNUE random(final int hidden, final int size1, final int size2, final long seed) {
+        LiteNNUE net = new LiteNNUE(hidden, size1, size2);
+        Random random = new Random(seed);
+        for (int i = 0; i < net.inputWeights.length; i++) net.inputWeights[i] = (short) (random.nextInt(17) - 8);
+        for (int i = 0; i < net.inputBias.length; i++) net.inputBias[i] = (short) random.nextInt(32);
+        for (int i = 0; i < net.weights1.length; i++) net.weights1[i] = (short) (random.nextInt(33) - 16);
+        for (int i = 0; i < net.weights2.length; i++) net.weights2[i] = (short) (random.nextInt(33) - 16);
+        for (int i = 0; i < net.outputWeights.length; i++) net.outputWeights[i] = (short) (random.nextInt(33) - 16);
+        return net;
+    }
+
+    private static void readShorts(final DataInputStream in, final short[] values) throws IOException {
+        byte[] bytes = in.readNBytes(values.length * 2);
+        if (bytes.length != values.length * 2) throw new IOException("network weights file is too short");
+        ByteBuffer.wrap(bytes).asShortBuffer().get(values);
+    }
+
+    private static void readInts(final DataInputStream in, final int[] values) throws IOException {
+        byte[] bytes = in.readNBytes(values.length * 4);
+        if (bytes.length != values.length * 4) throw new IOException("network weights file is too short");
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+    }
+
+    private static void writeShorts(final DataOutputStream out, final short[] values) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * 2);
+        bytes.asShortBuffer().put(values);
+        out.write(bytes.array());
+    }
+
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * 4);
+        bytes.asIntBuffer().put(values);
+        out.write(bytes.array());
+    }
+
+
+    // The input number of a piece on a spot from one side's point of view.  Black sees
+    // the board with the rows flipped so both sides see their own pieces moving up.
+    private static int input(final int side, final int kingNdx, final int ndx, final byte b) {
+        int flip = (side == Side.White) ? 0 : 56;
+        int piece = (LiteUtil.getType(b) - 1) * 2 + ((LiteUtil.getSide(b) == side) ? 0 : 1);
+        return ((kingNdx ^ flip) * 10 + piece) * LiteBoard.BOARD_SIZE + (ndx ^ flip);
+    }
+
+    /**
+     * Add a piece's inputs to both of a board's accumulators.
+     *
+     * @param board the board the piece is on
+     * @param ndx   the spot the piece is on
+     * @param b     the piece
+     */
+    void addPiece(final LiteBoard board, final int ndx, final byte b) {
+        if (LiteUtil.getType(b) == LiteBoard.King) return;
+        add(board.whtAccumulator, input(Side.White, board.whtKingLoc, ndx, b));
+        add(board.blkAccumulator, input(Side.Black, board.blkKingLoc, ndx, b));
+    }
+
+    /**
+     * Take a piece's inputs out of both of a board's accumulators.
+     *
+     * @param board the board the piece is on
+     * @param ndx   the spot the piece is on
+     * @param b     the piece
+     */
+    void removePiece(final LiteBoard board, final int ndx, final byte b) {
+        if (LiteUtil.getType(b) == LiteBoard.King) return;
+        subtract(board.whtAccumulator, input(Side.White, board.whtKingLoc, ndx, b));
+        subtract(board.blkAccumulator, input(Side.Black, board.blkKingLoc, ndx, b));
+    }
+
+    private void add(final short[] accumulator, final int input) {
+        kernel.add(accumulator, inputWeights, input * hidden, hidden);
+    }
+
+    private void subtract(final short[] accumulator, final int input) {
+        kernel.subtract(accumulator, inputWeights, input * hidden, hidden);
+    }
+
+    /**
+     * Recompute one side's accumulator from every piece on the board.
+     *
+     * @param board the board to recompute the accumulator of
+     * @param side  whose point of view to recompute
+     */
+    void refresh(final LiteBoard board, final int side) {
+        short[] accumulator = (side == Side.White) ? board.whtAccumulator : board.blkAccumulator;
+        int kingNdx = (side == Side.White) ? board.whtKingLoc : board.blkKingLoc;
+        System.arraycopy(inputBias, 0, accumulator, 0, hidden);
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = board.board[ndx];
+            if (LiteUtil.isEmpty(b) || LiteUtil.getType(b) == LiteBoard.King) continue;
+            add(accumulator, input(side, kingNdx, ndx, b));
+        }
+    }
+
+    /**
+     * Evaluate a board with the network.  The board's accumulators are used if it has
+     * them for this network, otherwise they are worked out from scratch first.
+     *
+     * @param board the board to evaluate
+     * @return the score of the board, positive in White's favor
+     */
+    public int evaluate(final LiteBoard board) {
+        if (board.nnue != this) {
+            LiteBoard copy = new LiteBoard(board, false);
+            copy.nnue = this;
+            copy.whtAccumulator = new short[hidden];
+            copy.blkAccumulator = new short[hidden];
+            refresh(copy, Side.White);
+            refresh(copy, Side.Black);
+            return evaluate(copy);
+        }
+
+        // the side to move's point of view goes first
+        short[] us = (board.turn == Side.White) ? board.whtAccumulator : board.blkAccumulator;
+        short[] them = (board.turn == Side.White) ? board.blkAccumulator : board.whtAccumulator;
+
+        LiteNNUEKernel k = kernel;
+        Scratch space = scratch.get();
+        short[] inputs = space.inputs;
+        int[] layer1 = space.layer1;
+
+        // clip once up front so the loops below are plain multiply-adds
+        k.clip(us, inputs, 0, hidden, CLIP);
+        k.clip(them, inputs, hidden, hidden, CLIP);
+
+        // the first layer's weights are stored by input so each input adds its whole column
+        // in one loop, and the inputs the clipping zeroed (usually most of them) are skipped
+        System.arraycopy(bias1, 0, layer1, 0, size1);
+        for (int i = 0; i < 2 * hidden; i++) {
+            int input = inputs[i];
+            if (input == 0) continue;
+            k.addColumn(layer1, weights1, i * size1, input, size1);
+        }
+        for (int j = 0; j < size1; j++) {
+            layer1[j] = clip(layer1[j] >> SHIFT);
+        }
+
+        int output = outputBias;
+        for (int n = 0; n < size2; n++) {
+            int sum = bias2[n] + k.dot(layer1, weights2, n * size1, size1);
+            output += clip(sum >> SHIFT) * outputWeights[n];
+        }
+
+        // the output is in 1/2^SHIFT centipawns for the side to move
+        int score = (output >> SHIFT) * LiteEval.positionScale;
+        return (board.turn == Side.White) ? score : -score;
+    }
+
+    private static int clip(final int value) {
+        return Integer.min(Integer.max(value, 0), CLIP);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * The LiteNNUEKernel interface is the inner loops of LiteNNUE: adding weight columns
+ * into the accumulators, clipping them, and the multiply-adds of the dense layers.
+ * <p>
+ * The Scalar kernel is plain Java loops.  The LiteNNUEVector kernel does the same
+ * with the Vector API.  It lives in its own source root, src-vector, which is only
+ * compiled when the jdk.incubator.vector module is added, and it is loaded by name,
+ * so this class and LiteNNUE build and run on the scalar kernel without it.
+ */
+interface LiteNNUEKernel {
+    // The class of the Vector API kernel, only loadable when src-vector is built and the module is present
+    String VECTOR_KERNEL = "LiteNNUEVector";
+
+    /**
+     * @return the name of the kernel for reports
+     */
+    String name();
+
+    /**
+     * Add a weight column to an accumulator: accumulator[i] += weights[base + i].
+     */
+    void add(short[] accumulator, short[] weights, int base, int count);
+
+    /**
+     * Take a weight column out of an accumulator: accumulator[i] -= weights[base + i].
+     */
+    void subtract(short[] accumulator, short[] weights, int base, int count);
+
+    /**
+     * Clip values into 0..max: to[offset + i] = min(max(from[i], 0), max).
+     */
+    void clip(short[] from, short[] to, int offset, int count, int max);
+
+    /**
+     * Add a weight column scaled by an input to a layer's sums: sums[j] += input * weights[base + j].
+     */
+    void addColumn(int[] sums, short[] weights, int base, int input, int count);
+
+    /**
+     * @return the sum of values[j] * weights[base + j]
+     */
+    int dot(int[] values, short[] weights, int base, int count);
+
+    /**
+     * @return the Vector API kernel if it was built and the jdk.incubator.vector module is present, otherwise the scalar kernel
+     */
+    static LiteNNUEKernel load() {
+        LiteNNUEKernel vector = loadVector();
+        return (vector != null) ? vector : new Scalar();
+    }
+
+    /**
+     * @return the Vector API kernel or null if it wasn't built or the jdk.incubator.vector module isn't present
+     */
+    static LiteNNUEKernel loadVector() {
+        try {
+            return (LiteNNUEKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Plain loops over arrays so the JIT can unroll them and vectorize what it can
+    final class Scalar implements LiteNNUEKernel {
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        @Override
+        public void add(final short[] accumulator, final short[] weights, final int base, final int count) {
+            for (int i = 0; i < count; i++) {
+                accumulator[i] += weights[base + i];
+            }
+        }
+
+        @Override
+        public void subtract(final short[] accumulator, final short[] weights, final int base, final int count) {
+            for (int i = 0; i < count; i++) {
+                accumulator[i] -= weights[base + i];
+            }
+        }
+
+        @Override
+        public void clip(final short[] from, final short[] to, final int offset, final int count, final int max) {
+            for (int i = 0; i < count; i++) {
+                to[offset + i] = (short) Integer.min(Integer.max(from[i], 0), max);
+            }
+        }
+
+        @Override
+        public void addColumn(final int[] sums, final short[] weights, final int base, final int input, final int count) {
+            for (int j = 0; j < count; j++) {
+                sums[j] += input * weights[base + j];
+            }
+        }
+
+        @Override
+        public int dot(final int[] values, final short[] weights, final int base, final int count) {
+            int sum = 0;
+            for (int j = 0; j < count; j++) {
+                sum += values[j] * weights[base + j];
+            }
+            return sum;
+        }
+    }
+}
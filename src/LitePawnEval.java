@@ -0,0 +1,202 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LitePawnEval class scores the pawn structure of a board: doubled, isolated,
+ * backward and passed pawns.  These need every pawn compared against the pawns on
+ * the files around it so they are too slow to work out at every leaf, but the pawns
+ * only change on a small fraction of moves.  So the score is looked up by the board's
+ * pawn-only Zobrist key in a small hash table first and only computed on a miss.
+ * <p>
+ * Each search thread has its own table so there is no locking and no sharing of
+ * cache lines between threads.
+ */
+public class LitePawnEval {
+    private static final int TABLE_BITS = 14;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    // The penalties are the doubled, isolated and backward weights in LiteEval, in centipawns.
+    // The passed pawn bonuses are in centipawns by rank from the pawn's own side, scaled
+    // by the passed weight percentage.
+    private static final int[] passedBonus = {0, 0, 5, 10, 20, 35, 60, 100, 0};
+
+    private static final int scale = LiteUtil.getValue(LiteBoard.Pawn) / 100;
+
+    // How many passed and weak pawns one side is allowed to have more of than the other
+    // when bounding the score for lazy evaluation
+    static final int PASSED_SPREAD = 2;
+    static final int WEAK_SPREAD = 3;
+
+    public static final LongAdder numHits = new LongAdder();
+    public static final LongAdder numMisses = new LongAdder();
+
+    // The pawn hash table for one thread.  An empty slot has key 0 and score 0, which is
+    // also the right answer for a board with no pawns, so no separate valid flag is needed.
+    // The generation is the weights the scores were computed with.
+    private static class Table {
+        final long[] keys = new long[TABLE_SIZE];
+        final int[] scores = new int[TABLE_SIZE];
+        int generation = LitePawnEval.generation;
+    }
+
+    // bumped whenever the weights change so every thread's table is emptied on its next use
+    private static volatile int generation = 0;
+
+    private static final ThreadLocal<Table> tables = ThreadLocal.withInitial(Table::new);
+
+    // Masks of spots used to find the pawns that matter to a pawn on a given spot
+    private static final long[] fileMask = new long[8];
+    private static final long[] adjacentFiles = new long[8];
+    private static final long[] whitePassedMask = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] blackPassedMask = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] whiteSupportMask = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] blackSupportMask = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] whiteStopAttackers = new long[LiteBoard.BOARD_SIZE];
+    private static final long[] blackStopAttackers = new long[LiteBoard.BOARD_SIZE];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            for (int row = 0; row < 8; row++) {
+                fileMask[col] |= 1L << (col + row * 8);
+            }
+        }
+        for (int col = 0; col < 8; col++) {
+            if (col > 0) adjacentFiles[col] |= fileMask[col - 1];
+            if (col < 7) adjacentFiles[col] |= fileMask[col + 1];
+        }
+
+        // Row 0 is black's back rank so white pawns move towards lower rows
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            int col = ndx % 8;
+            int row = ndx / 8;
+            long files = fileMask[col] | adjacentFiles[col];
+            for (int r = 0; r < 8; r++) {
+                long rowMask = 0xFFL << (r * 8);
+                if (r < row) whitePassedMask[ndx] |= files & rowMask;
+                if (r > row) blackPassedMask[ndx] |= files & rowMask;
+                if (r >= row) whiteSupportMask[ndx] |= adjacentFiles[col] & rowMask;
+                if (r <= row) blackSupportMask[ndx] |= adjacentFiles[col] & rowMask;
+            }
+            // the enemy pawns that would take a pawn stepping onto its stop square
+            if (row >= 2) whiteStopAttackers[ndx] = adjacentFiles[col] & (0xFFL << ((row - 2) * 8));
+            if (row <= 5) blackStopAttackers[ndx] = adjacentFiles[col] & (0xFFL << ((row + 2) * 8));
+        }
+    }
+
+    /**
+     * Get the pawn structure score for a board, from the pawn hash table if possible.
+     *
+     * @param board the board to score
+     * @return the pawn structure score, positive in White's favor
+     */
+    public static int evaluate(final LiteBoard board) {
+        Table table = tables.get();
+        if (table.generation != generation) {
+            Arrays.fill(table.keys, 0L);
+            Arrays.fill(table.scores, 0);
+            table.generation = generation;
+        }
+        long key = board.pawnKey;
+        int slot = (int) key & (TABLE_SIZE - 1);
+        if (table.keys[slot] == key) {
+            numHits.increment();
+            return table.scores[slot];
+        }
+        numMisses.increment();
+
+        int score = computeScore(board);
+        table.keys[slot] = key;
+        table.scores[slot] = score;
+        return score;
+    }
+
+    /**
+     * Throw away the scores in every thread's pawn hash table, for when the weights change.
+     */
+    static void clear() {
+        generation++;
+    }
+
+    /**
+     * Bound the pawn structure score with the current weights: the most advanced passed
+     * pawns of one side and weak pawns of the other, each weak pawn both doubled and
+     * isolated or backward.
+     *
+     * @return the largest pawn structure score either side is expected to get
+     */
+    static int maxScore() {
+        int passed = 0;
+        for (int rank = 1; rank <= PASSED_SPREAD; rank++) {
+            passed += passedBonus[passedBonus.length - 1 - rank];
+        }
+        passed = passed * LiteEval.weights[LiteEval.PASSED] / 100;
+
+        int weakest = LiteEval.weights[LiteEval.DOUBLED]
+                + Integer.max(LiteEval.weights[LiteEval.ISOLATED], LiteEval.weights[LiteEval.BACKWARD]);
+
+        return (Integer.max(0, passed) + WEAK_SPREAD * Integer.max(0, weakest)) * scale;
+    }
+
+    /**
+     * Score the pawn structure of a board from scratch.
+     *
+     * @param board the board to score
+     * @return the pawn structure score, positive in White's favor
+     */
+    public static int computeScore(final LiteBoard board) {
+        long white = 0L;
+        long black = 0L;
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = board.board[ndx];
+            if (LiteUtil.getType(b) != LiteBoard.Pawn) continue;
+            if (LiteUtil.getSide(b) == Side.White)
+                white |= 1L << ndx;
+            else
+                black |= 1L << ndx;
+        }
+
+        final int doubledPenalty = LiteEval.weights[LiteEval.DOUBLED];
+        final int isolatedPenalty = LiteEval.weights[LiteEval.ISOLATED];
+        final int backwardPenalty = LiteEval.weights[LiteEval.BACKWARD];
+        final int passedScale = LiteEval.weights[LiteEval.PASSED];
+
+        int score = 0;
+        int passed = 0;
+        for (int col = 0; col < 8; col++) {
+            int whiteOnFile = Long.bitCount(white & fileMask[col]);
+            int blackOnFile = Long.bitCount(black & fileMask[col]);
+            if (whiteOnFile > 1) score -= doubledPenalty * (whiteOnFile - 1);
+            if (blackOnFile > 1) score += doubledPenalty * (blackOnFile - 1);
+        }
+
+        for (long pawns = white; pawns != 0; pawns &= pawns - 1) {
+            int ndx = Long.numberOfTrailingZeros(pawns);
+            int col = ndx % 8;
+            if ((white & adjacentFiles[col]) == 0) {
+                score -= isolatedPenalty;
+            } else if ((white & whiteSupportMask[ndx]) == 0 && (black & whiteStopAttackers[ndx]) != 0) {
+                score -= backwardPenalty;
+            }
+            if ((black & whitePassedMask[ndx]) == 0) {
+                passed += passedBonus[8 - ndx / 8];
+            }
+        }
+
+        for (long pawns = black; pawns != 0; pawns &= pawns - 1) {
+            int ndx = Long.numberOfTrailingZeros(pawns);
+            int col = ndx % 8;
+            if ((black & adjacentFiles[col]) == 0) {
+                score += isolatedPenalty;
+            } else if ((black & blackSupportMask[ndx]) == 0 && (white & blackStopAttackers[ndx]) != 0) {
+                score += backwardPenalty;
+            }
+            if ((white & blackPassedMask[ndx]) == 0) {
+                passed -= passedBonus[ndx / 8 + 1];
+            }
+        }
+
+        score += passed * passedScale / 100;
+
+        return score * scale;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * The LiteSearchInfo objects are a transparent snapshot of the progress of a search
+ * that LiteMinimax hands to the listeners registered with addSearchListener().
+ * <p>
+ * A snapshot is sent each time the best move at the root changes, every so often
+ * while the search threads are working, and once more when the search is finished.
+ * Listeners are called on whichever search thread noticed it was time to send one
+ * so they should be quick and must not block.
+ */
+public class LiteSearchInfo {
+    // the board the search is for
+    public final LiteBoard board;
+
+    // the ply depth the search is going to
+    public final int depth;
+
+    // the deepest ply reached so far including the quiescent search of captures
+    public final int selDepth;
+
+    public final long nodes;
+    public final long millis;
+    public final long nps;
+
+    // how full the evaluation cache is, in parts per thousand
+    public final int hashFull;
+
+    // the value of the best move so far, positive in White's favor
+    public final int value;
+
+    // the best line found so far, starting with the best move; it may be empty
+    public final Move[] pv;
+
+    // true for the last snapshot of a search
+    public final boolean finished;
+
+    public LiteSearchInfo(LiteBoard board, int depth, int selDepth, long nodes, long millis,
+                          int hashFull, int value, Move[] pv, boolean finished) {
+        this.board = board;
+        this.depth = depth;
+        this.selDepth = selDepth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.nps = nodes * 1000 / Long.max(1, millis);
+        this.hashFull = hashFull;
+        this.value = value;
+        this.pv = pv;
+        this.finished = finished;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "depth %d/%d nodes %,d time %,dms nps %,d hash %d%% value %,d pv",
+                depth, selDepth, nodes, millis, nps, hashFull / 10, value));
+        for (Move move : pv) {
+            builder.append(String.format(" %c%d%c%d",
+                    move.getFromCol() + 'a', 8 - move.getFromRow(),
+                    move.getToCol() + 'a', 8 - move.getToRow()));
+        }
+        if (finished) {
+            builder.append(" (done)");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * A LiteSplitPoint is the shared state of one node in the search tree whose younger
+ * moves (the "young brothers") are being searched in parallel after the eldest move
+ * has been searched on its own.  All of the brother tasks at the node read their
+ * alpha-beta window from here before they start and merge their results back in
+ * when they finish so the window keeps tightening for the brothers that follow.
+ */
+public class LiteSplitPoint {
+    private final boolean maximize;
+    private final BestMove best;
+    private int alpha;
+    private int beta;
+    private int movesExamined;
+    private boolean noReplies;
+
+    LiteSplitPoint(int alpha, int beta, boolean maximize, final BestMove eldest) {
+        this.maximize = maximize;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.movesExamined = 0;
+
+        // start from whatever the eldest brother already found for this node
+        this.best = new BestMove(maximize);
+        this.best.move = eldest.move;
+        this.best.value = eldest.value;
+    }
+
+    synchronized int getAlpha() {
+        return alpha;
+    }
+
+    synchronized int getBeta() {
+        return beta;
+    }
+
+    /**
+     * @return true if a brother has already refuted this node and the rest need not be searched
+     */
+    synchronized boolean isCutoff() {
+        return alpha >= beta || noReplies;
+    }
+
+    /**
+     * Merge the result of one brother's search into this split point.
+     *
+     * @param move          the move the brother searched
+     * @param value         the value the brother found for the move
+     * @param examined      the number of moves the brother examined
+     * @param improvedBest  true if the brother's own search produced a new best move
+     * @param noReplies     true if the move leaves the other player with no moves
+     */
+    synchronized void update(final Move move, int value, int examined, boolean improvedBest, boolean noReplies) {
+        movesExamined += examined;
+        this.noReplies |= noReplies;
+
+        if (improvedBest && ((!maximize && value < best.value) || (maximize && value > best.value))) {
+            best.value = value;
+            best.move = move;
+        }
+
+        if (maximize)
+            alpha = Integer.max(alpha, value);
+        else
+            beta = Integer.min(beta, value);
+    }
+
+    synchronized int getValue() {
+        return best.value;
+    }
+
+    synchronized int getMovesExamined() {
+        return movesExamined;
+    }
+}
@@ -0,0 +1,382 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The LiteTuner class tunes the LiteEval weights against the results of real games
+ * using Texel's method: the score of each position is turned into an expected result
+ * with a logistic curve and the weights are changed one step at a time, keeping each
+ * change that lowers the mean squared difference between the expected and real results.
+ * <p>
+ * Each line of the positions file is a FEN or EPD position followed somewhere by the
+ * result of its game: 1-0, 0-1, 1/2-1/2, or a number in brackets like [0.5].
+ * A .pgn file of games can be given instead; every position of each game with a
+ * result is used except for the first few, which come from the opening book.
+ * <p>
+ * There may be millions of positions so each is packed into 33 bytes: a nibble per
+ * spot for the piece type and side, then a byte for the side to move and the result.
+ * Positions are first replaced by the end of the line of captures both sides would
+ * choose to make so only quiet positions are scored, which is what the search does.
+ * The error is summed over slices of the positions in parallel on the search pool.
+ */
+public class LiteTuner {
+    private static final int SPOTS_BYTES = LiteBoard.BOARD_SIZE / 2;
+    private static final int RECORD_SIZE = SPOTS_BYTES + 1;
+
+    // The plies at the start of each PGN game that are left out since they are book moves
+    private static final int PGN_SKIP_PLIES = 8;
+
+    // The most captures in a row looked at when quieting a position
+    private static final int QUIET_DEPTH = 8;
+
+    private byte[] records = new byte[RECORD_SIZE * 1024];
+    private int numPositions = 0;
+
+    // the logistic curve's scale, fitted to the positions before tuning
+    private double scaleK = 1.0;
+
+    // each thread's board to unpack positions into
+    private static final ThreadLocal<LiteBoard> boards = ThreadLocal.withInitial(LiteBoard::new);
+
+    // each thread's capture list and best line holder for every depth of quiesce(), so
+    // quieting millions of positions doesn't allocate them at every node
+    private static class Scratch {
+        final int[][] captures = new int[QUIET_DEPTH + 1][256];
+        final LiteBoard[][] lines = new LiteBoard[QUIET_DEPTH + 1][1];
+    }
+
+    private static final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Tune the evaluation weights on a file of positions and write them to a weights file.
+     * The weights in use when this is called are the starting point.
+     *
+     * @param positionsFile the FEN/EPD positions with game results
+     * @param weightsFile   the file to write the tuned weights to after each pass
+     * @throws IOException if the positions can't be read or the weights can't be written
+     */
+    public static void tune(final String positionsFile, final String weightsFile) throws IOException {
+        if (LiteEval.hasBoardEvaluator()) {
+            throw new IllegalStateException("the LiteEval weights can't be tuned while a network is doing the evaluation");
+        }
+
+        LiteTuner tuner = new LiteTuner();
+
+        long start = System.nanoTime();
+        int skipped = tuner.read(positionsFile);
+        System.out.printf("Read %,d positions (%,d lines or games skipped) in %.1f seconds%n",
+                tuner.numPositions, skipped, (System.nanoTime() - start) / 1e9);
+        if (tuner.numPositions == 0) return;
+
+        start = System.nanoTime();
+        tuner.quietAll();
+        System.out.printf("Quieted the positions in %.1f seconds%n", (System.nanoTime() - start) / 1e9);
+
+        tuner.fitScale();
+        System.out.printf("Logistic scale K = %.3f%n", tuner.scaleK);
+
+        tuner.localSearch(weightsFile);
+    }
+
+    // Read the positions file, returning how many lines didn't have a position and result
+    int read(final String filename) throws IOException {
+        if (filename.toLowerCase().endsWith(".pgn")) {
+            return readPGN(filename);
+        }
+
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (!add(line)) skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    // Read the positions of the games in a PGN file, returning how many games had no result
+    int readPGN(final String filename) throws IOException {
+        int skipped = 0;
+        try (PGN.Reader reader = new PGN.Reader(filename)) {
+            PGN.Game game;
+            while ((game = reader.read()) != null) {
+                String result = game.getResult();
+                if (result.equals("*")) {
+                    skipped++;
+                    continue;
+                }
+                int[] ply = {0};
+                PGN.replay(game, (board, move) -> {
+                    if (ply[0]++ >= PGN_SKIP_PLIES) {
+                        add(FEN.encode(board) + " " + result);
+                    }
+                });
+            }
+        }
+        return skipped;
+    }
+
+    // Pack one line of the positions file, returning false if it isn't a position and result
+    boolean add(final String line) {
+        int result = parseResult(line);
+        if (result < 0) return false;
+
+        String[] fields = line.split("\\s+");
+        if (fields.length < 2) return false;
+
+        byte[] record = new byte[RECORD_SIZE];
+        int ndx = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') continue;
+            if (c >= '1' && c <= '8') {
+                ndx += c - '0';
+                continue;
+            }
+            int type = " pnbrqk".indexOf(Character.toLowerCase(c));
+            if (type <= 0 || ndx >= LiteBoard.BOARD_SIZE) return false;
+            int side = Character.isUpperCase(c) ? Side.White : Side.Black;
+            setNibble(record, ndx++, type | (side << 3));
+        }
+        if (ndx != LiteBoard.BOARD_SIZE) return false;
+
+        int turn = fields[1].equals("b") ? Side.Black : Side.White;
+        record[SPOTS_BYTES] = (byte) (turn | (result << 1));
+
+        if ((numPositions + 1) * RECORD_SIZE > records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        System.arraycopy(record, 0, records, numPositions * RECORD_SIZE, RECORD_SIZE);
+        numPositions++;
+        return true;
+    }
+
+    // The game result as 0 for a Black win, 1 for a draw and 2 for a White win, or -1 if there isn't one
+    static int parseResult(final String line) {
+        if (line.contains("1/2-1/2") || line.contains("[0.5]")) return 1;
+        if (line.contains("1-0") || line.contains("[1.0]") || line.contains("[1]")) return 2;
+        if (line.contains("0-1") || line.contains("[0.0]") || line.contains("[0]")) return 0;
+        return -1;
+    }
+
+    private static void setNibble(final byte[] record, final int ndx, final int value) {
+        int shift = (ndx & 1) * 4;
+        record[ndx / 2] = (byte) ((record[ndx / 2] & ~(0xF << shift)) | (value << shift));
+    }
+
+    private int getNibble(final int position, final int ndx) {
+        int shift = (ndx & 1) * 4;
+        return (records[position * RECORD_SIZE + ndx / 2] >> shift) & 0xF;
+    }
+
+    // Unpack a position into a board.  Pawns off their starting row are marked as moved.
+    void unpack(final int position, final LiteBoard board) {
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            int code = getNibble(position, ndx);
+            int type = code & 7;
+            int side = code >> 3;
+            if (type == LiteBoard.Empty) {
+                board.board[ndx] = LiteUtil.makeSpot(LiteBoard.Empty, Side.Black, false, false);
+            } else {
+                int homeRow = (side == Side.White) ? 6 : 1;
+                boolean moved = type != LiteBoard.Pawn || ndx / 8 != homeRow;
+                board.board[ndx] = LiteUtil.makeSpot(type, side, moved, false);
+            }
+        }
+        board.turn = records[position * RECORD_SIZE + SPOTS_BYTES] & 1;
+        board.refreshScores();
+    }
+
+    // Pack a board back into the place of a position, keeping the position's result
+    private void repack(final int position, final LiteBoard board) {
+        int base = position * RECORD_SIZE;
+        byte resultByte = records[base + SPOTS_BYTES];
+        Arrays.fill(records, base, base + SPOTS_BYTES, (byte) 0);
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte b = board.board[ndx];
+            if (LiteUtil.isEmpty(b)) continue;
+            int shift = (ndx & 1) * 4;
+            records[base + ndx / 2] |= (byte) ((LiteUtil.getType(b) | (LiteUtil.getSide(b) << 3)) << shift);
+        }
+        records[base + SPOTS_BYTES] = (byte) ((resultByte & ~1) | (board.turn & 1));
+    }
+
+    // The result of a position's game for White: 0, 0.5 or 1
+    double result(final int position) {
+        return ((records[position * RECORD_SIZE + SPOTS_BYTES] >> 1) & 3) / 2.0;
+    }
+
+
+    // Replace every position with the end of its line of captures
+    void quietAll() {
+        runSlices((from, to) -> {
+            LiteBoard board = boards.get();
+            Scratch space = scratch.get();
+            LiteBoard[] leaf = new LiteBoard[1];
+            for (int position = from; position < to; position++) {
+                unpack(position, board);
+                quiesce(board, -LiteUtil.MAX_VALUE, LiteUtil.MAX_VALUE, QUIET_DEPTH, leaf, space);
+                if (leaf[0] != board) {
+                    repack(position, leaf[0]);
+                }
+            }
+            return 0.0;
+        });
+    }
+
+    // A capture-only alpha-beta search from the side to move's point of view that
+    // leaves the board at the end of the line it chooses in leaf[0].  The captures are
+    // pseudo-legal so a capture that leaves its own king in check is refuted by the
+    // king being taken, and the side to move can always stand pat instead.  Only one
+    // node of each depth is searched at a time so each depth has its own scratch space.
+    private static int quiesce(final LiteBoard board, int alpha, final int beta, final int depth,
+                               final LiteBoard[] leaf, final Scratch space) {
+        int standPat = LiteEval.evaluate(board, LiteEval.ALL);
+        if (board.turn == Side.Black) standPat = -standPat;
+        leaf[0] = board;
+        if (standPat >= beta || depth == 0) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] captures = space.captures[depth];
+        int count = LiteAttacks.captures(board, board.turn, captures);
+        Arrays.sort(captures, 0, count);
+
+        LiteBoard[] line = space.lines[depth];
+        for (int i = count - 1; i >= 0; i--) {
+            int capture = captures[i];
+            if ((capture >> 16) == LiteBoard.King) {
+                return LiteUtil.MAX_VALUE;
+            }
+
+            int from = (capture >> 6) & 63;
+            int to = capture & 63;
+            LiteBoard next = new LiteBoard(board, false);
+            next.executeMove(new Move(from % 8, from / 8, to % 8, to / 8, 0));
+            next.advanceTurn();
+            int score = -quiesce(next, -beta, -alpha, depth - 1, line, space);
+            if (score > alpha) {
+                alpha = score;
+                leaf[0] = line[0];
+                if (score >= beta) break;
+            }
+        }
+        return alpha;
+    }
+
+
+    // The mean squared difference between the real results and the ones expected from the scores
+    double error() {
+        return runSlices((from, to) -> {
+            LiteBoard board = boards.get();
+            double sum = 0.0;
+            for (int position = from; position < to; position++) {
+                unpack(position, board);
+                double centipawns = (double) LiteEval.evaluate(board, LiteEval.ALL) / LiteEval.positionScale;
+                double expected = 1.0 / (1.0 + Math.pow(10.0, -scaleK * centipawns / 400.0));
+                double diff = result(position) - expected;
+                sum += diff * diff;
+            }
+            return sum;
+        }) / numPositions;
+    }
+
+    // Find the logistic scale that best fits the scores the weights already give
+    void fitScale() {
+        double best = error();
+        for (double step = 0.5; step >= 0.01; step /= 2) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (double delta : new double[]{step, -step}) {
+                    double old = scaleK;
+                    if (old + delta <= 0.0) continue;
+                    scaleK = old + delta;
+                    double err = error();
+                    if (err < best) {
+                        best = err;
+                        improved = true;
+                        break;
+                    }
+                    scaleK = old;
+                }
+            }
+        }
+    }
+
+    // Step each weight up and down by its tuning step and keep any change that lowers the
+    // error, until a whole pass over the weights finds nothing better
+    void localSearch(final String weightsFile) throws IOException {
+        int[] best = LiteEval.getWeights();
+        double bestError = error();
+        System.out.printf("Starting error %.6f%n", bestError);
+
+        int pass = 0;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            pass++;
+            for (int i = 0; i < best.length; i++) {
+                int step = LiteEval.tuningSteps[i];
+                for (int delta : new int[]{step, -step}) {
+                    int[] trial = best.clone();
+                    trial[i] += delta;
+                    LiteEval.setWeights(trial);
+                    double err = error();
+                    if (err < bestError) {
+                        bestError = err;
+                        best = trial;
+                        improved = true;
+                        System.out.printf("  %-12s %5d  error %.6f%n", LiteEval.weightNames[i], best[i], bestError);
+                        break;
+                    }
+                }
+                LiteEval.setWeights(best);
+            }
+
+            LiteEval.saveWeights(weightsFile, String.format(
+                    "evaluation weights tuned on %,d positions, pass %d, error %.6f", numPositions, pass, bestError));
+            System.out.printf("Pass %d done, error %.6f, weights written to %s%n", pass, bestError, weightsFile);
+        }
+    }
+
+
+    @FunctionalInterface
+    interface Slice {
+        double run(int from, int to);
+    }
+
+    // Split the positions into slices, run them on the search pool and add up the results
+    private double runSlices(final Slice slice) {
+        ForkJoinPool pool = LiteExecutors.getSearchPool();
+        int numSlices = pool.getParallelism() * 4;
+        int size = (numPositions + numSlices - 1) / numSlices;
+
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int from = 0; from < numPositions; from += size) {
+            final int start = from;
+            final int end = Integer.min(from + size, numPositions);
+            tasks.add(() -> slice.run(start, end));
+        }
+
+        double total = 0.0;
+        try {
+            for (Future<Double> future : pool.invokeAll(tasks)) {
+                total += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("tuning was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("tuning failed", e.getCause());
+        }
+        return total;
+    }
+}
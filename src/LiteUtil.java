@@ -6,6 +6,9 @@ public class LiteUtil {
     final public  static int MAX_VALUE = Integer.MAX_VALUE - (Integer.MAX_VALUE / 4);
     final public  static int MIN_VALUE = 0 - MAX_VALUE;
 
+    // The piece values moves are ordered by and captures are noticed by, and the unit
+    // scores are counted in (a pawn is 10000).  The evaluation's own piece values are the
+    // tuned weights in LiteEval, so these stay fixed.
     final private static int[] values = {0, 10000, 30000, 30000, 50000, 90000, MAX_VALUE};
 
     // Masks
@@ -0,0 +1,49 @@
+import java.util.Random;
+
+/**
+ * The LiteZobrist class holds the random numbers used to hash board states.
+ * A board's key is the exclusive-or of the number for every piece on every
+ * spot, so making a move only needs the numbers of the spots it changes
+ * to be xor'ed in or out of the key rather than rehashing the whole board.
+ * <p>
+ * The numbers come from a fixed seed so keys are the same from run to run.
+ * Whether a piece has moved is part of its number since that decides if a
+ * pawn can still double step or a king and rook can still castle.
+ * <p>
+ * The side to move is not part of a board's key since the board's turn is set
+ * in several places without going through the board.  Anything that depends on
+ * it, like an evaluation from the side to move's point of view, xor's in
+ * turnKey() when it uses the key.
+ */
+public class LiteZobrist {
+    private static final int PIECE_MASK = LiteUtil.Type | LiteUtil.Side | LiteUtil.Moved;
+    private static final int PIECE_CODES = PIECE_MASK + 1;
+
+    private static final long[] pieceKeys = new long[LiteBoard.BOARD_SIZE * PIECE_CODES];
+    private static final long whiteToMove;
+
+    static {
+        Random random = new Random(0x5EED_C0DE_2019L);
+        for (int ndx = 0; ndx < pieceKeys.length; ndx++) {
+            pieceKeys[ndx] = random.nextLong();
+        }
+        whiteToMove = random.nextLong();
+    }
+
+    /**
+     * @param ndx the spot the piece is on
+     * @param b   the piece
+     * @return the number to xor into a key for the given piece on the given spot
+     */
+    public static long pieceKey(final int ndx, final byte b) {
+        return pieceKeys[ndx * PIECE_CODES + (b & PIECE_MASK)];
+    }
+
+    /**
+     * @param side the side to move
+     * @return the number to xor into a key for the side to move
+     */
+    public static long turnKey(final int side) {
+        return (side == Side.White) ? whiteToMove : 0L;
+    }
+}
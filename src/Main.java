@@ -2,6 +2,7 @@ import static java.lang.System.exit;
 import static java.lang.Thread.yield;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -11,6 +12,8 @@ import java.util.HashMap;
 import java.util.Scanner;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.BiPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -29,6 +32,9 @@ public class Main {
     public static String serialFilename = "chessMoves.ser";
 
     private static LiteMinimax liteAgent = null;
+
+    // the progress reports of the search in progress, sent by the search threads
+    private static final BlockingQueue<LiteSearchInfo> searchProgress = new LinkedBlockingQueue<>();
     private static String configFile = "chess.properties";
     private static List<List<String>> bailedStackList = null;
     public static String logFile = "chess.log";
@@ -41,13 +47,18 @@ public class Main {
     public static boolean searchInBackground = true;
     public static boolean useCache = true;
     public static boolean useThreads = true;
+    public static boolean useVirtualThreads = false;
+    public static PolyglotBook book = null;
     public static Thread mainThread = Thread.currentThread();
 
     public static void main(String[] args) throws InterruptedException, IllegalArgumentException {
         setLogLevel(LogLevel.DEBUG);
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            System.out.println("Shutting down gracefully...");
+            // stdout belongs to the GUI in UCI mode
+            if (options == null || !options.containsKey("uci")) {
+                System.out.println("Shutting down gracefully...");
+            }
             // Perform cleanup or any necessary actions before exiting
         }));
 
@@ -64,10 +75,88 @@ public class Main {
         maxDepth = config.maxDepth;
         maxSeconds = config.maxSeconds;
 
+        LiteExecutors.setMaxThreads(config.maxThreads);
+
+        // tuned weights are only used when asked for, by -weights or the weights property of the
+        // configuration, so a weights file left in the working directory can't quietly change how
+        // the engine plays
+        boolean weightsGiven = options.containsKey("weights") || !config.weights.isEmpty();
+        String weightsFile = options.getOrDefault("weights",
+                config.weights.isEmpty() ? LiteEval.WEIGHTS_FILE : config.weights);
+        if (weightsGiven) {
+            if (new File(weightsFile).exists()) {
+                try {
+                    LiteEval.loadWeights(weightsFile);
+                } catch (IOException e) {
+                    System.err.println("Could not load the evaluation weights: " + e.getMessage());
+                    System.exit(1);
+                }
+                // stderr so it doesn't get in the way of the UCI protocol on stdout
+                System.err.println("Evaluation weights loaded from " + weightsFile);
+            } else if (!options.containsKey("tune")) {
+                // a missing weights file is only all right when tuning is about to write it
+                System.err.println("Could not find the evaluation weights file " + weightsFile);
+                System.exit(1);
+            }
+        }
+
+        if (options.containsKey("tune")) {
+            try {
+                LiteTuner.tune(options.get("tune"), weightsFile);
+            } catch (IOException e) {
+                System.err.println("Tuning failed: " + e.getMessage());
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+
+        String nnueFile = options.getOrDefault("nnue", config.nnue);
+        if (!nnueFile.isEmpty()) {
+            try {
+                LiteNNUE.use(LiteNNUE.load(nnueFile));
+            } catch (IOException e) {
+                System.err.println("Could not load the NNUE network: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (options.containsKey("book")) {
+            try {
+                book = PolyglotBook.open(options.get("book"));
+                log(LogLevel.INFO, "Opening book %s", book);
+            } catch (IOException e) {
+                System.err.println("Could not open the opening book: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
         if (options.containsKey("ply")) {
             maxDepth = Integer.parseInt(options.get("ply"));
         }
 
+        if (options.containsKey("buildbook")) {
+            buildBook(options.get("buildbook"));
+            System.exit(0);
+        }
+
+        if (options.containsKey("uci")) {
+            UCI.run(maxDepth);
+            LiteExecutors.shutdown();
+            System.exit(0);
+        }
+
+        if (options.containsKey("match")) {
+            runMatch(options.get("match"));
+            LiteExecutors.shutdown();
+            System.exit(0);
+        }
+
+        if (options.containsKey("epd")) {
+            runEPD(options.get("epd"));
+            LiteExecutors.shutdown();
+            System.exit(0);
+        }
+
         liteAgent = new LiteMinimax(serialFilename, maxDepth, maxSeconds);
 
         liteBoard = new LiteBoard();
@@ -80,6 +169,32 @@ public class Main {
             }
         }
 
+        if (options.containsKey("speedup")) {
+            EngineTuningTests.runSpeedupCurve(maxDepth);
+            System.exit(0);
+        }
+
+        if (options.containsKey("bench")) {
+            EngineTuningTests.runBench();
+            LiteExecutors.shutdown();
+            System.exit(0);
+        }
+
+        if (options.containsKey("microbench")) {
+            MicroBench.run(options.get("microbench"));
+            System.exit(0);
+        }
+
+        if (options.containsKey("evalbench")) {
+            LiteNNUE net = LiteNNUE.getNetwork();
+            if (net == null) {
+                // no network given so time one of a typical size with random weights
+                net = LiteNNUE.random(256, 32, 32, 1L);
+            }
+            EngineTuningTests.runEvalBenchmark(maxDepth, net);
+            System.exit(0);
+        }
+
         if (options.containsKey("profwait")) {
             Thread.sleep(Integer.parseInt(options.get("profwait")) * 1000);
         }
@@ -93,6 +208,101 @@ public class Main {
         onAppExit();
     }
 
+    // Build an opening book from the PGN files in the -buildbook option
+    private static void buildBook(String pgnFiles) {
+        BookBuilder builder = new BookBuilder(
+                Integer.parseInt(options.getOrDefault("bookply", "30")),
+                Integer.parseInt(options.getOrDefault("bookmin", "3")),
+                Integer.parseInt(options.getOrDefault("bookmemory", "256")));
+        try {
+            for (String pgnFile : pgnFiles.split(",")) {
+                builder.addGames(pgnFile);
+            }
+            builder.write(options.getOrDefault("bookout", "book.bin"));
+        } catch (IOException e) {
+            System.err.println("Building the book failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Solve an EPD suite headless with the limits given by the -epd... options
+    private static void runEPD(String suiteFile) {
+        EPDRunner.Mode mode = EPDRunner.Mode.DEPTH;
+        long limit = maxDepth;
+        if (options.containsKey("epdtime")) {
+            mode = EPDRunner.Mode.TIME;
+            limit = Long.parseLong(options.get("epdtime"));
+        } else if (options.containsKey("epdnodes")) {
+            mode = EPDRunner.Mode.NODES;
+            limit = Long.parseLong(options.get("epdnodes"));
+        } else if (options.containsKey("epddepth")) {
+            limit = Long.parseLong(options.get("epddepth"));
+        }
+
+        int threadsPer = Integer.parseInt(options.getOrDefault("epdthreads", "1"));
+        int processors = Runtime.getRuntime().availableProcessors();
+        int parallel = Integer.parseInt(options.getOrDefault("epdparallel",
+                String.valueOf(Integer.max(1, processors / Integer.max(1, threadsPer)))));
+
+        EPDRunner runner = new EPDRunner(mode, limit, maxDepth, parallel, threadsPer);
+        try {
+            runner.run(suiteFile, options.getOrDefault("epdreport", "epd-report.json"));
+        } catch (IOException e) {
+            System.err.println("EPD suite failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Play a self-play match between the two engine configurations in the -match option
+    private static void runMatch(String engines) {
+        String[] files = engines.split(",");
+        if (files.length != 2) {
+            System.err.println("-match needs two engine properties files: -match=new.properties,old.properties");
+            System.exit(1);
+        }
+
+        List<String> openings = new ArrayList<>();
+        try {
+            if (options.containsKey("openings")) {
+                openings = MatchRunner.readOpenings(options.get("openings"));
+            } else {
+                openings.add("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+                for (String test : EngineTuningTests.suite2) {
+                    openings.add(EPDRunner.parse(test).fen);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read the openings: " + e.getMessage());
+            System.exit(1);
+        }
+        if (openings.isEmpty()) {
+            System.err.println("There are no openings to play");
+            System.exit(1);
+        }
+
+        String[] sprt = options.getOrDefault("sprt", "0,5").split(",");
+        int threadsPer = Integer.parseInt(options.getOrDefault("gamethreads", "1"));
+        int processors = Runtime.getRuntime().availableProcessors();
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency",
+                String.valueOf(Integer.max(1, processors / Integer.max(1, threadsPer)))));
+
+        try {
+            MatchRunner match = new MatchRunner(files[0], files[1],
+                    Long.parseLong(options.getOrDefault("matchtime", "100")), threadsPer, concurrency,
+                    Double.parseDouble(sprt[0]), Double.parseDouble(sprt[sprt.length - 1]));
+            if (options.containsKey("matchpgn")) {
+                match.setPGNFile(options.get("matchpgn"));
+            }
+            match.run(openings, Integer.parseInt(options.getOrDefault("games", "1000")));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Could not open the match PGN file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
     private static void playGame(final LiteMinimax liteAgent) throws InterruptedException {
         for (int n = 0; n < 20; ++n) {
             System.out.println("\n");
@@ -104,10 +314,15 @@ public class Main {
         Move move;
 
         liteAgent.registerDisplayCallback(s -> showBoard(liteBoard, s + Ansi.clearEOL, liteAgent, 0, gameStart, true));
+        liteAgent.setInfoInterval(refreshRate);
+        liteAgent.addSearchListener(searchProgress::offer);
+        liteAgent.addSearchListener(info -> log(LogLevel.DEBUG, "Search: %s", info));
 
         System.out.println();
         showBoard(liteBoard, null, liteAgent, 0, 0, true);
 
+        PGN.Game record = new PGN.Game("JavaChess game", "1", config.player1, config.player2, liteBoard);
+
         moveStart = System.nanoTime();
         move = getNextPlayersMove(liteBoard, liteAgent, null, moveStart, gameStart);
 
@@ -121,6 +336,7 @@ public class Main {
                 liteAgent.cachedMoves.deletePieceTaken(liteBoard.board, ndx);
             }
 
+            record.addMove(liteBoard, move);
             liteBoard.executeMove(move);
             liteBoard.advanceTurn();
 
@@ -139,6 +355,31 @@ public class Main {
                 + getGameSummary(liteBoard)
                 + getTotalGameTime(gameStart));
         System.out.println(getGameSummary(liteBoard) + getTotalGameTime(gameStart));
+
+        if (options.containsKey("pgn")) {
+            writeGame(record, liteBoard);
+        }
+    }
+
+    // Append the game just played to the -pgn file with its result in the usual scoring,
+    // where a stalemate is a draw
+    private static void writeGame(final PGN.Game record, final LiteBoard board) {
+        board.ensureMoves1();
+        if (board.checkDrawByRepetition(board.lastMove, board.maxRep)) {
+            record.setResult("1/2-1/2", "draw by repetition");
+        } else if (board.numMoves1 == 0 && board.kingInCheck(board.turn)) {
+            record.setResult((board.turn == Side.White) ? "0-1" : "1-0", "checkmate");
+        } else if (board.numMoves1 == 0) {
+            record.setResult("1/2-1/2", "stalemate");
+        } else {
+            record.setResult("*", "game stopped");
+        }
+
+        try (PGN.Writer writer = new PGN.Writer(options.get("pgn"))) {
+            writer.write(record);
+        } catch (IOException e) {
+            log(LogLevel.ERROR, "Could not write the game to %s: %s", options.get("pgn"), e.getMessage());
+        }
     }
 
     private static Move getNextPlayersMove(final LiteBoard board,
@@ -155,19 +396,22 @@ public class Main {
         // The single point where we launch (and own as the parent thread ourselves) the
         // search thread owner, and
         // it's child threads. The complimentary join() back together is noted below.
+        searchProgress.clear();
         Move move = liteAgent.bestMove(board, searchInBackground);
 
         while (move == null) {
             showBoard(board, moveDesc, liteAgent, moveStart, gameStart, false);
-            Thread.sleep(refreshRate);
 
             // The single point where we join() with the existing search thread if it is
             // finished
             boolean searchCompleted = liteAgent.moveSearchIsDone();
-            if (searchCompleted) {
-                // we just join()ed back together with the completed search thread (and it's
-                // child threads join()ed to
-                // it before that).
+            if (!searchCompleted) {
+                // Sleep until the search sends its next progress report.  The last one
+                // comes as it finishes so then we wait for it to wrap up and join() with it.
+                if (searchProgress.take().finished) {
+                    liteAgent.awaitSearch();
+                    searchCompleted = liteAgent.moveSearchIsDone();
+                }
             }
 
             if (searchCompleted) {
@@ -181,8 +425,6 @@ public class Main {
                     showBoard(board, moveDesc, liteAgent, moveStart, gameStart, searchCompleted);
                     break;
                 }
-            } else {
-                showBoard(board, moveDesc, liteAgent, moveStart, gameStart, searchCompleted);
             }
         }
 
@@ -333,6 +575,14 @@ public class Main {
             if (options.containsKey("threads")) {
                 useThreads = options.get("threads").toLowerCase().equals("true");
             }
+
+            if (options.containsKey("virtual")) {
+                useVirtualThreads = options.get("virtual").toLowerCase().equals("true");
+            }
+
+            if (options.containsKey("verify")) {
+                LiteBoard.verifyScores = options.get("verify").toLowerCase().equals("true");
+            }
         }
     }
 
@@ -354,8 +604,54 @@ public class Main {
         System.out.println("    -refresh=num                update the display every num milliseconds");
         System.out.println("    -screenfile=file            write display output to file");
         System.out.println("    -test                       Run internal tests and exit");
+        System.out.println("    -speedup                    Measure search speedup at 1 to 32 threads and exit");
+        System.out.println("    -bench                      Search a fixed set of positions on one thread and print the\n" +
+                "                                total moves examined (a signature of the engine's behavior)\n" +
+                "                                and moves per second, then exit");
+        System.out.println("    -microbench                 Time board, evaluation, move cache and FEN operations and exit");
+        System.out.println("    -microbench=name            Only run the microbenchmarks whose names start with name\n" +
+                "                                (board, eval, cache, fen, or a full name like board.copy)");
+        System.out.println("    -evalbench                  Measure LiteEval against the NNUE network and exit\n" +
+                "                                (a random network of the usual size if -nnue isn't given)");
+        System.out.println("    -tune=file                  Tune the evaluation weights on the FEN/EPD positions and\n" +
+                "                                game results in file, write them to the weights file and exit");
+        System.out.println("    -weights=file               Load the evaluation weights from file, or with -tune start\n" +
+                "                                from and write them to file.  Default: the weights property of\n" +
+                "                                the properties file, and for -tune " + LiteEval.WEIGHTS_FILE);
+        System.out.println("    -nnue=file                  Evaluate with the NNUE network in the weights file.\n" +
+                "                                Default: the nnue property of the properties file");
+        System.out.println("    -book=file                  Play opening moves from the Polyglot .bin book in file");
+        System.out.println("    -buildbook=file,...         Build a Polyglot book from the games in the PGN files, such\n" +
+                "                                as the games of a match, then exit");
+        System.out.println("    -bookout=file               Write the built book to file.  Default: book.bin");
+        System.out.println("    -bookply=num                Put the first num plies of each game in the book.  Default: 30");
+        System.out.println("    -bookmin=num                Leave out moves played in fewer than num games.  Default: 3");
+        System.out.println("    -bookmemory=mb              Count moves in mb megabytes, sorting the rest on disk.  Default: 256");
+        System.out.println("    -pgn=file                   Add each game played on the console to the PGN file");
+        System.out.println("    -matchpgn=file              Add each match game to the PGN file as it finishes");
+        System.out.println("    -uci                        Talk the UCI protocol on stdin and stdout for chess GUIs\n" +
+                "                                and match programs instead of playing on the console");
+        System.out.println("    -epd=file                   Solve the EPD test suite in file without the display, write\n" +
+                "                                a JSON report and exit.  Searches go to -ply depth unless\n" +
+                "                                -epdtime=ms, -epddepth=num or -epdnodes=num is given");
+        System.out.println("    -epdparallel=num            Search num EPD positions at once.  Default: processors / epdthreads");
+        System.out.println("    -epdthreads=num             Give each EPD position num search threads.  Default: 1");
+        System.out.println("    -epdreport=file             Write the EPD report to file.  Default: epd-report.json");
+        System.out.println("    -match=new,old              Play a self-play match between the engines set up by the\n" +
+                "                                properties files new and old, each run with -uci in a process\n" +
+                "                                of its own, print the Elo difference and stop when the SPRT\n" +
+                "                                decides, then exit");
+        System.out.println("    -games=num                  Play at most num match games.  Default: 1000");
+        System.out.println("    -matchtime=ms               Give each match move ms milliseconds.  Default: 100");
+        System.out.println("    -openings=file              Start match games from the FEN/EPD positions in file");
+        System.out.println("    -gamethreads=num            Give each match game num search threads.  Default: 1");
+        System.out.println("    -concurrency=num            Play num match games at once.  Default: processors / gamethreads");
+        System.out.println("    -sprt=elo0,elo1             The match SPRT's hypotheses.  Default: 0,5");
         System.out.println("    -ply=num                    Sets the max number of look-ahead moves");
         System.out.println("    -maxtime=num                Limit AI thinking to num seconds");
+        System.out.println("    -virtual=true               Wait on searches using virtual threads (Java 21+)");
+        System.out.println("    -verify=true                Check the running board scores against a full recount\n" +
+                "                                after every move (slow, for debugging)");
         // System.out.println(" -key=value ");
     }
 
@@ -393,13 +689,10 @@ public class Main {
             } else {
                 // stop any current search if running
                 if (liteAgent.currentSearch != null) {
-                    // attempt to join with background search threads
-                    liteAgent.cancelThreadStack(1000);
-
-                    long waitTime = 3_000_000_000L;
-                    long stopTime = System.nanoTime() + waitTime;
-                    while (!liteAgent.moveSearchIsDone() && System.nanoTime() < stopTime) {
-                        java.lang.Thread.yield();
+                    // stop the search and join with its background search threads
+                    // as soon as they unwind (giving up after 3 seconds)
+                    if (liteAgent.cancelSearch(3000)) {
+                        liteAgent.moveSearchIsDone();
                     }
                 }
 
@@ -408,6 +701,8 @@ public class Main {
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
+
+                LiteExecutors.shutdown();
             }
         }
 
@@ -741,6 +1036,9 @@ public class Main {
         boolean checkMateBlack = board.kingInCheck(Side.Black);
         boolean checkMateWhite = board.kingInCheck(Side.White);
 
+        board.ensureMoves1();
+        board.ensureMoves2();
+
         int numMoveBlack;
         int numMoveWhite;
         if (board.turn == Side.Black) {
@@ -803,6 +1101,8 @@ public class Main {
         // create a map of the current player moves which could
         // take an opponent piece
         List<Integer> targets = new ArrayList<>();
+        board.ensureMoves1();
+        board.ensureMoves2();
         int numMoves = (side == board.turn) ? board.numMoves1 : board.numMoves2;
         Move[] moves = (side == board.turn) ? board.moves1 : board.moves2;
 
@@ -963,6 +1263,7 @@ public class Main {
             int row1 = 8 - Integer.parseInt(parts[0].substring(1));
             int row2 = 8 - Integer.parseInt(parts[1].substring(1));
 
+            board.ensureMoves1();
             for (int ndx = 0; ndx < board.numMoves1; ndx++) {
                 Move m = board.moves1[ndx];
                 if (m.getFromCol() == col1 && m.getFromRow() == row1
@@ -0,0 +1,549 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The MatchRunner class plays a match of many games between two engine configurations
+ * without the console display to find out which plays better.
+ * <p>
+ * Each engine is set up from its own properties file the way the console game is
+ * (see ChessConfig), including the search depth and the weights and nnue files it
+ * evaluates with.  The evaluation is shared by everything in a process so each
+ * engine runs in a process of its own, this program with -uci and its properties
+ * file, and the match talks to it over UCI.  Both files must make a draw of the same
+ * number of repeated moves since that is a rule of the game rather than a setting of
+ * one engine.  Every move gets the same fixed number of milliseconds, and an engine
+ * that answers with no move or one that isn't legal loses the game.
+ * <p>
+ * Each opening is played twice with the engines swapping colors.  Several games are
+ * played at once and both engines of a game search with the same number of threads,
+ * so they always search with the same resources no matter what the other games are
+ * doing.  Each of the games played at once has a process of each engine that plays
+ * all of its games, told of every new game with ucinewgame, and the processes are
+ * all ended when the match is over or fails.
+ * <p>
+ * After every game the Elo difference of the first engine over the second is worked
+ * out with its 95% error bars, and a sequential probability ratio test between the
+ * hypotheses that the difference is elo0 and that it is elo1 stops the match as soon
+ * as the results are clear enough.
+ * <p>
+ * The games can be written to a PGN file as they finish, to look over or to build an
+ * opening book from.
+ */
+public class MatchRunner {
+
+    // A game longer than this is called a draw
+    private static final int MAX_PLIES = 400;
+
+    // The SPRT's chance of accepting elo1 when elo0 is true and the other way around
+    private static final double ALPHA = 0.05;
+    private static final double BETA = 0.05;
+
+    // The normal approximation the SPRT uses needs a few games before the variance means anything
+    private static final int MIN_SPRT_GAMES = 20;
+
+    // An engine: a name and the properties file its process is started with
+    static class Engine {
+        final String name;
+        final String configFile;
+        final int maxRep;
+
+        Engine(String configFile) {
+            ChessConfig config = new ChessConfig(configFile);
+            if (config.loadConfiguration()) {
+                throw new IllegalArgumentException("could not read the engine configuration " + configFile);
+            }
+            // the engine's process would only fail on them after the match had started
+            for (String file : new String[]{config.weights, config.nnue}) {
+                if (!file.isEmpty() && !new File(file).exists()) {
+                    throw new IllegalArgumentException("could not find " + file + " given by " + configFile);
+                }
+            }
+            this.name = new File(configFile).getName().replaceFirst("\\.properties$", "");
+            this.configFile = configFile;
+            this.maxRep = config.maxDrawReps;
+        }
+
+        // the command that runs this program as a UCI engine with the engine's properties file
+        List<String> command() {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                command.add("--add-modules");
+                command.add("jdk.incubator.vector");
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Main.class.getName());
+            command.add("-uci");
+            command.add("-configfile=" + configFile);
+            if (Main.options != null && Main.options.containsKey("book")) {
+                command.add("-book=" + Main.options.get("book"));
+            }
+            return command;
+        }
+    }
+
+    // An engine's process, talked to over UCI
+    private static class EngineProcess implements AutoCloseable {
+        private final Engine engine;
+        private final Process process;
+        private final BufferedReader in;
+        private final PrintStream out;
+
+        EngineProcess(Engine engine, int threads) throws IOException {
+            this.engine = engine;
+            // stderr only says which files were loaded; the files were checked when the match was set up
+            this.process = new ProcessBuilder(engine.command())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            this.in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            this.out = new PrintStream(process.getOutputStream(), true);
+
+            try {
+                send("uci");
+                waitFor("uciok");
+                send("setoption name Threads value " + threads);
+                send("isready");
+                waitFor("readyok");
+            } catch (IOException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+        }
+
+        // start a new game and wait for the engine to be ready for it
+        void newGame() throws IOException {
+            send("ucinewgame");
+            send("isready");
+            waitFor("readyok");
+        }
+
+        /**
+         * @param position  the position command: the opening and the moves played since
+         * @param moveMillis the milliseconds to search for
+         * @return the move the engine chose in UCI notation
+         */
+        String bestMove(String position, long moveMillis) throws IOException {
+            send(position);
+            send("go movetime " + moveMillis);
+            String[] words = waitFor("bestmove").split("\\s+");
+            return (words.length > 1) ? words[1] : "0000";
+        }
+
+        private void send(String command) {
+            out.println(command);
+        }
+
+        // read lines until one starts with the word given and return it
+        private String waitFor(String word) throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.equals(word) || line.startsWith(word + " ")) return line;
+            }
+            throw new IOException("engine " + engine.name + " exited before sending " + word);
+        }
+
+        @Override
+        public void close() {
+            send("quit");
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // How a game ended, from White's point of view
+    enum Result {
+        WHITE_WINS("1-0"),
+        BLACK_WINS("0-1"),
+        DRAW("1/2-1/2");
+
+        final String text;
+
+        Result(String text) {
+            this.text = text;
+        }
+    }
+
+    // One game played: who had White, how it started and went, and how it ended
+    static class Game {
+        int number;
+        String opening;
+        Engine white;
+        Engine black;
+        List<Move> moves = new ArrayList<>();
+        Result result;
+        String reason;
+    }
+
+    private final Engine first;
+    private final Engine second;
+    private final long moveMillis;
+    private final int threadsPerGame;
+    private final int concurrency;
+    private final double elo0;
+    private final double elo1;
+
+    // games won, drawn and lost by the first engine
+    private int wins = 0;
+    private int draws = 0;
+    private int losses = 0;
+    private volatile boolean stopped = false;
+
+    private PGN.Writer pgn = null;
+
+    /**
+     * @param first          the properties file of the engine being tested
+     * @param second         the properties file of the engine it is measured against
+     * @param moveMillis     the milliseconds each engine gets for every move
+     * @param threadsPerGame the number of search threads each game is given
+     * @param concurrency    the number of games played at once
+     * @param elo0           the Elo difference of the SPRT's null hypothesis
+     * @param elo1           the Elo difference of the SPRT's alternative hypothesis
+     */
+    public MatchRunner(String first, String second, long moveMillis, int threadsPerGame,
+                       int concurrency, double elo0, double elo1) {
+        this.first = new Engine(first);
+        this.second = new Engine(second);
+        if (this.first.maxRep != this.second.maxRep) {
+            throw new IllegalArgumentException(String.format("%s calls a draw at %d repeated moves but %s at %d",
+                    this.first.name, this.first.maxRep, this.second.name, this.second.maxRep));
+        }
+        this.moveMillis = moveMillis;
+        this.threadsPerGame = Integer.max(1, threadsPerGame);
+        this.concurrency = Integer.max(1, concurrency);
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+    }
+
+    /**
+     * Add each game to a PGN file as it finishes.
+     *
+     * @param filename the PGN file, added to if it is already there
+     * @throws IOException if the file can't be opened
+     */
+    public void setPGNFile(String filename) throws IOException {
+        pgn = new PGN.Writer(filename);
+    }
+
+    /**
+     * Play the match.
+     *
+     * @param openings the FEN positions to start the games from, each is played with both colors
+     * @param maxGames the most games to play if the SPRT doesn't stop the match first
+     * @return the games played in the order they finished
+     */
+    public List<Game> run(List<String> openings, int maxGames) {
+        System.out.printf("%s vs %s: up to %,d games, %,dms a move, %d at once with %d thread%s each, SPRT elo0 %.1f elo1 %.1f%n%n",
+                first.name, second.name, maxGames, moveMillis, concurrency, threadsPerGame,
+                (threadsPerGame == 1) ? "" : "s", elo0, elo1);
+
+        List<Game> played = new ArrayList<>();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService players = Executors.newFixedThreadPool(concurrency);
+        Throwable failure = null;
+        try {
+            List<Future<?>> slots = new ArrayList<>(concurrency);
+            for (int slot = 0; slot < concurrency; slot++) {
+                slots.add(players.submit(() -> playGames(openings, maxGames, next, played)));
+            }
+            // wait for every slot so all of the engine processes are ended before returning
+            for (Future<?> slot : slots) {
+                try {
+                    slot.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+        } finally {
+            players.shutdownNow();
+            closePGN();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("a match game failed", failure);
+        }
+
+        System.out.println();
+        System.out.println(summary());
+        return played;
+    }
+
+    // Play games on one of the match's slots with a process of each engine until there are none
+    // left or the match is stopped.  A game that fails stops the whole match.
+    private void playGames(List<String> openings, int maxGames, AtomicInteger next, List<Game> played) {
+        Game game = null;
+        try (EngineProcess ours = new EngineProcess(first, threadsPerGame);
+             EngineProcess theirs = new EngineProcess(second, threadsPerGame)) {
+            int n;
+            while (!stopped && (n = next.getAndIncrement()) < maxGames) {
+                game = new Game();
+                game.number = n + 1;
+                game.opening = openings.get((n / 2) % openings.size());
+                game.white = ((n & 1) == 0) ? first : second;
+                game.black = ((n & 1) == 0) ? second : first;
+
+                ours.newGame();
+                theirs.newGame();
+                if (game.white == first) {
+                    play(game, ours, theirs);
+                } else {
+                    play(game, theirs, ours);
+                }
+                if (game.result != null) {
+                    record(game, played);
+                }
+            }
+        } catch (IOException e) {
+            stopped = true;
+            String when = (game == null) ? "starting the engines" : "game " + game.number;
+            throw new IllegalStateException(when + " lost an engine: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            stopped = true;
+            throw e;
+        }
+    }
+
+    // Play one game between two engine processes; the result is left null if the match was stopped
+    private void play(final Game game, final EngineProcess white, final EngineProcess black) throws IOException {
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, game.opening);
+        board.maxRep = game.white.maxRep;
+        StringBuilder position = new StringBuilder("position fen " + game.opening + " moves");
+
+        while (!stopped) {
+            board.ensureMoves1();
+            if (board.numMoves1 == 0) {
+                if (!board.kingInCheck(board.turn)) {
+                    end(game, Result.DRAW, "stalemate");
+                } else {
+                    end(game, (board.turn == Side.White) ? Result.BLACK_WINS : Result.WHITE_WINS, "checkmate");
+                }
+                return;
+            }
+            if (game.moves.size() >= MAX_PLIES) {
+                end(game, Result.DRAW, "move limit");
+                return;
+            }
+            if (onlyKings(board)) {
+                end(game, Result.DRAW, "insufficient material");
+                return;
+            }
+
+            EngineProcess engine = (board.turn == Side.White) ? white : black;
+            String sent = engine.bestMove(position.toString(), moveMillis);
+            Move move = UCI.findMove(board, sent);
+            if (move == null) {
+                // the engine has moves to play so a null move or one that isn't legal loses the game
+                String reason = sent.equals("0000") ? "no move" : "illegal move " + sent;
+                Main.log(Main.LogLevel.ERROR, "Game %d: %s sent bestmove %s in %s",
+                        game.number, engine.engine.name, sent, position);
+                end(game, (board.turn == Side.White) ? Result.BLACK_WINS : Result.WHITE_WINS, reason);
+                return;
+            }
+
+            position.append(' ').append(UCI.toUci(board, move));
+            game.moves.add(move);
+            board.executeMove(move);
+            board.advanceTurn();
+
+            if (board.checkDrawByRepetition(board.lastMove, board.maxRep)) {
+                end(game, Result.DRAW, "repetition");
+                return;
+            }
+        }
+    }
+
+    private static void end(final Game game, final Result result, final String reason) {
+        game.result = result;
+        game.reason = reason;
+    }
+
+    private static boolean onlyKings(final LiteBoard board) {
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            int type = board.getType(ndx);
+            if (type != LiteBoard.Empty && type != LiteBoard.King) return false;
+        }
+        return true;
+    }
+
+    // Count a finished game, print the standings and stop the match if the SPRT has decided
+    private synchronized void record(final Game game, final List<Game> played) {
+        if (stopped) return;
+        played.add(game);
+
+        boolean firstIsWhite = (game.white == first);
+        if (game.result == Result.DRAW) {
+            draws++;
+        } else if ((game.result == Result.WHITE_WINS) == firstIsWhite) {
+            wins++;
+        } else {
+            losses++;
+        }
+
+        double llr = llr();
+        System.out.printf("Game %5d  %-12s %-12s %-7s %-22s  +%d =%d -%d  %s  LLR %.2f [%.2f, %.2f]%n",
+                game.number, game.white.name, game.black.name, game.result.text, "(" + game.reason + ")",
+                wins, draws, losses, eloText(), llr, lowerBound(), upperBound());
+
+        if (pgn != null) {
+            try {
+                pgn.write(toPGN(game));
+            } catch (IOException e) {
+                Main.log(Main.LogLevel.ERROR, "Could not write game %d to the PGN file: %s", game.number, e.getMessage());
+            }
+        }
+
+        if (played.size() >= MIN_SPRT_GAMES && (llr >= upperBound() || llr <= lowerBound())) {
+            stopped = true;
+        }
+    }
+
+    private void closePGN() {
+        if (pgn == null) return;
+        try {
+            pgn.close();
+        } catch (IOException e) {
+            Main.log(Main.LogLevel.ERROR, "Could not close the PGN file: %s", e.getMessage());
+        }
+    }
+
+    // Replay a game from its opening to write its moves in SAN
+    private PGN.Game toPGN(final Game game) {
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, game.opening);
+        PGN.Game record = new PGN.Game(first.name + " vs " + second.name, String.valueOf(game.number),
+                game.white.name, game.black.name, board);
+        for (Move move : game.moves) {
+            record.addMove(board, move);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        record.setResult(game.result.text, game.reason);
+        return record;
+    }
+
+    /**
+     * @return the standings, the Elo difference and the SPRT's decision if it has made one
+     */
+    public synchronized String summary() {
+        double llr = llr();
+        String decision = (wins + draws + losses < MIN_SPRT_GAMES) ? "too few games for the SPRT"
+                : (llr >= upperBound()) ? String.format("H1 accepted: %s is at least %.1f Elo better", first.name, elo1)
+                : (llr <= lowerBound()) ? String.format("H0 accepted: %s is not %.1f Elo better", first.name, elo1)
+                : "SPRT inconclusive";
+        return String.format("%s vs %s: %d games +%d =%d -%d, %s, LLR %.2f, %s",
+                first.name, second.name, wins + draws + losses, wins, draws, losses, eloText(), llr, decision);
+    }
+
+    private String eloText() {
+        return eloText(wins, draws, losses);
+    }
+
+    // the Elo difference of a first engine with these results and its 95% error bars
+    static String eloText(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0) return "Elo 0.0 +/- 0.0";
+        double score = score(wins, draws, losses);
+        double margin = 1.96 * Math.sqrt(variance(wins, draws, losses) / games);
+        double elo = elo(score);
+        double low = elo(score - margin);
+        double high = elo(score + margin);
+        return String.format("Elo %.1f +/- %.1f", elo, (high - low) / 2.0);
+    }
+
+    // the first engine's average score a game
+    static double score(int wins, int draws, int losses) {
+        return (wins + draws * 0.5) / (wins + draws + losses);
+    }
+
+    // the variance of the score of a single game
+    static double variance(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        double score = score(wins, draws, losses);
+        return (wins * (1.0 - score) * (1.0 - score)
+                + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+    }
+
+    // the Elo difference that gives an average score, clamped so a clean sweep stays finite
+    private static double elo(double score) {
+        double clamped = Math.min(Math.max(score, 0.001), 0.999);
+        return -400.0 * Math.log10(1.0 / clamped - 1.0);
+    }
+
+    // the average score an Elo difference gives
+    private static double expectedScore(double elo) {
+        return 1.0 / (1.0 + Math.pow(10.0, -elo / 400.0));
+    }
+
+    private double llr() {
+        return llr(wins, draws, losses, elo0, elo1);
+    }
+
+    /**
+     * The log likelihood ratio of elo1 over elo0 given a first engine's results, using
+     * the normal approximation to the distribution of the average score.
+     */
+    static double llr(int wins, int draws, int losses, double elo0, double elo1) {
+        int games = wins + draws + losses;
+        if (games == 0) return 0.0;
+        double variance = variance(wins, draws, losses);
+        if (variance <= 0.0) return 0.0;
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return (s1 - s0) * (2.0 * score(wins, draws, losses) - s0 - s1) * games / (2.0 * variance);
+    }
+
+    private static double lowerBound() {
+        return Math.log(BETA / (1.0 - ALPHA));
+    }
+
+    private static double upperBound() {
+        return Math.log((1.0 - BETA) / ALPHA);
+    }
+
+    /**
+     * Read the positions of an openings file, one FEN or EPD per line.  Blank lines
+     * and lines starting with # are skipped.
+     *
+     * @param filename the openings file
+     * @return the positions
+     * @throws IOException if the file can't be read
+     */
+    public static List<String> readOpenings(final String filename) throws IOException {
+        List<String> openings = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                EPDRunner.Position position = EPDRunner.parse(line);
+                if (position != null) {
+                    openings.add(position.fen);
+                }
+            }
+        }
+        return openings;
+    }
+}
@@ -0,0 +1,273 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * The MicroBench class times the small operations the search does millions of times:
+ * copying and making moves on a LiteBoard, generating moves, looking for check,
+ * evaluating, the move cache and FEN conversion.  Each is run over and over for a
+ * fixed time after a warm up and reported as operations per second, nanoseconds per
+ * operation and bytes allocated per operation.
+ * <p>
+ * It works the way JMH does (warm up iterations, measured iterations, results fed to a
+ * sink so the JIT can't throw the work away, allocation counted per thread like JMH's
+ * -prof gc) but lives here since the engine is in the default package, which the
+ * code JMH generates can't import, and there is no build to add JMH to.  All of the
+ * benchmarks run in this one JVM so compare numbers from the same run.
+ * <p>
+ * The move cache benchmarks share one cache between 1 to 32 threads to show how it
+ * holds up under contention.
+ */
+public class MicroBench {
+
+    // An operation to time.  It is given the iteration number and returns something
+    // that depends on its work so that the work can't be optimized away.
+    interface Op {
+        int run(int i);
+    }
+
+    // A named benchmark and how to make each thread's operation
+    static class Bench {
+        final String name;
+        final boolean threaded;
+        final Supplier<Supplier<Op>> setup;
+
+        Bench(String name, boolean threaded, Supplier<Supplier<Op>> setup) {
+            this.name = name;
+            this.threaded = threaded;
+            this.setup = setup;
+        }
+    }
+
+    static int warmupIterations = 3;
+    static int measureIterations = 5;
+    static long iterationNanos = 500_000_000L;
+    static int[] threadCounts = {1, 2, 4, 8, 16, 32};
+
+    // calls between looks at the clock
+    private static final int BATCH = 256;
+
+    // where every result ends up so none of the work is dead code
+    private static volatile int sink;
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Run the benchmarks whose names start with a prefix and print the results.
+     *
+     * @param prefix the start of the names of the benchmarks to run, empty for all of them
+     */
+    static public void run(String prefix) {
+        LiteBoard[] boards = testBoards();
+        String[] fens = new String[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            fens[i] = FEN.encode(boards[i]);
+        }
+
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        System.out.printf("Microbenchmarks over %d positions, %d x %dms warm up, %d x %dms measured%n%n",
+                boards.length, warmupIterations, iterationNanos / 1_000_000L, measureIterations, iterationNanos / 1_000_000L);
+        System.out.printf("%-28s %8s %16s %10s %12s %12s%n", "benchmark", "threads", "ops/second", "error", "ns/op", "bytes/op");
+
+        for (Bench bench : benchmarks(boards, fens)) {
+            if (!bench.name.startsWith(prefix)) continue;
+
+            if (bench.threaded) {
+                for (int threads : threadCounts) {
+                    measure(bench, threads);
+                }
+            } else {
+                measure(bench, 1);
+            }
+        }
+    }
+
+    // The positions of the test suites, set up with their move lists ready
+    private static LiteBoard[] testBoards() {
+        List<LiteBoard> boards = new ArrayList<>();
+        for (String[] suite : new String[][]{EngineTuningTests.suite1, EngineTuningTests.kaufmanTest}) {
+            for (String fen : suite) {
+                LiteBoard board = new LiteBoard();
+                EngineTuningTests.setupBoard(board, fen);
+                board.ensureMoves1();
+                boards.add(board);
+            }
+        }
+        return boards.toArray(new LiteBoard[0]);
+    }
+
+    private static List<Bench> benchmarks(LiteBoard[] boards, String[] fens) {
+        int n = boards.length;
+        List<Bench> list = new ArrayList<>();
+
+        list.add(new Bench("board.copy", false, () -> () -> i -> {
+            LiteBoard copy = new LiteBoard(boards[i % n], false);
+            return copy.hashKey != 0 ? 1 : 0;
+        }));
+
+        list.add(new Bench("board.copyAndExecuteMove", false, () -> () -> i -> {
+            LiteBoard board = boards[i % n];
+            LiteBoard copy = new LiteBoard(board, false);
+            copy.executeMove(board.moves1[(i / n) % board.numMoves1]);
+            return (int) copy.hashKey;
+        }));
+
+        list.add(new Bench("board.getMovesSorted", false, () -> () -> i -> {
+            LiteBoard board = boards[i % n];
+            return board.getMovesSorted(board.turn).size();
+        }));
+
+        list.add(new Bench("board.kingInCheck", false, () -> () -> i -> {
+            LiteBoard board = boards[i % n];
+            return board.kingInCheck(board.turn) ? 1 : 0;
+        }));
+
+        list.add(new Bench("eval.evaluate", false, () -> () -> i -> LiteEval.evaluate(boards[i % n])));
+
+        list.add(new Bench("fen.decode", false, () -> () -> {
+            LiteBoard board = new LiteBoard();
+            return i -> {
+                FEN.decode(board, fens[i % n]);
+                return (int) board.hashKey;
+            };
+        }));
+
+        list.add(new Bench("fen.encode", false, () -> () -> i -> FEN.encode(boards[i % n]).length()));
+
+        list.add(new Bench("cache.getBoardKey", true, () -> () -> i ->
+                CachedMoveMap.getBoardKey(boards[i % n].board).hashCode()));
+
+        // the cache is shared by all of the threads, each looking up and adding moves
+        // on the same positions the way the search threads do
+        list.add(new Bench("cache.lookupBestMove", true, () -> {
+            CachedMoveMap cache = filledCache(boards);
+            return () -> i -> {
+                BestMove best = cache.lookupBestMove(boards[i % n].board, (i & 1) == 0);
+                return (best == null) ? 0 : best.value;
+            };
+        }));
+
+        list.add(new Bench("cache.addMoveValue", true, () -> {
+            CachedMoveMap cache = filledCache(boards);
+            return () -> i -> {
+                LiteBoard board = boards[i % n];
+                Move move = board.moves1[(i / n) % board.numMoves1];
+                cache.addMoveValue(board.board, (i & 1) == 0, move, i, 1);
+                return move.getTo();
+            };
+        }));
+
+        return list;
+    }
+
+    // A move cache with a move for both sides of every test board
+    private static CachedMoveMap filledCache(LiteBoard[] boards) {
+        CachedMoveMap cache = new CachedMoveMap();
+        for (LiteBoard board : boards) {
+            cache.addMoveValue(board.board, true, board.moves1[0], 0, 1);
+            cache.addMoveValue(board.board, false, board.moves1[0], 0, 1);
+        }
+        return cache;
+    }
+
+    // Warm up and then time one benchmark on some number of threads and print the result
+    private static void measure(Bench bench, int threads) {
+        Supplier<Op> opFactory = bench.setup.get();
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(opFactory, threads);
+        }
+
+        double[] opsPerSecond = new double[measureIterations];
+        long totalOps = 0L;
+        long totalBytes = 0L;
+        for (int i = 0; i < measureIterations; i++) {
+            long[] result = iteration(opFactory, threads);
+            totalOps += result[0];
+            totalBytes += result[1];
+            opsPerSecond[i] = result[0] * 1e9 / result[2];
+        }
+
+        double mean = 0.0;
+        for (double ops : opsPerSecond) mean += ops;
+        mean /= measureIterations;
+        double variance = 0.0;
+        for (double ops : opsPerSecond) variance += (ops - mean) * (ops - mean);
+        double error = (measureIterations > 1) ? Math.sqrt(variance / (measureIterations - 1)) : 0.0;
+
+        System.out.printf("%-28s %8d %,16.0f %9.1f%% %,12.1f %,12.1f%n",
+                bench.name, threads, mean, (mean == 0.0) ? 0.0 : error * 100.0 / mean,
+                // each thread spends the whole time working so the time of one op is threads / throughput
+                threads * 1e9 / mean, (totalOps == 0) ? 0.0 : (double) totalBytes / totalOps);
+    }
+
+    /**
+     * Run a benchmark's operation on some number of threads for one iteration.
+     *
+     * @return the operations done by all of the threads, the bytes they allocated and the nanoseconds it took
+     */
+    private static long[] iteration(Supplier<Op> opFactory, int threads) {
+        long[] ops = new long[threads];
+        long[] bytes = new long[threads];
+        int[] results = new int[threads];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            final Op op = opFactory.get();
+            workers[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long threadId = Thread.currentThread().getId();
+                long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+                long end = System.nanoTime() + iterationNanos;
+                int result = 0;
+                int count = 0;
+                do {
+                    for (int b = 0; b < BATCH; b++) {
+                        result += op.run(count++);
+                    }
+                } while (System.nanoTime() < end);
+                bytes[id] = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+                ops[id] = count;
+                results[id] = result;
+            });
+            workers[t].start();
+        }
+
+        long start;
+        try {
+            ready.await();
+            start = System.nanoTime();
+            go.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new long[]{0L, 0L, 1L};
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long totalOps = 0L;
+        long totalBytes = 0L;
+        int sum = 0;
+        for (int t = 0; t < threads; t++) {
+            totalOps += ops[t];
+            totalBytes += bytes[t];
+            sum += results[t];
+        }
+        sink += sum;
+        return new long[]{totalOps, totalBytes, elapsed};
+    }
+}
@@ -0,0 +1,398 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PGN class reads and writes games in Portable Game Notation, the text format
+ * chess games are kept and traded in.
+ * <p>
+ * Files of games can be many gigabytes so the Reader streams them: each call to read
+ * parses just the next game.  The tag pairs and the moves of the main line are kept
+ * as text in SAN; comments, variations, numeric annotations and move numbers are
+ * skipped.  replay plays a game's moves out on a LiteBoard.
+ * <p>
+ * The Writer appends games to a file as they finish, so the console game and every
+ * game of a match can be kept.  A game is built up one move at a time with addMove
+ * on the board the move is made on.
+ */
+public class PGN {
+    public static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2", "*"};
+
+    // The tags every game is supposed to have, in the order they're written
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Movetext lines are kept shorter than this
+    private static final int LINE_LENGTH = 80;
+
+    // One game: its tag pairs, its moves in SAN and its result
+    public static class Game {
+        public final Map<String, String> tags = new LinkedHashMap<>();
+        public final List<String> moves = new ArrayList<>();
+        public String result = null;
+        public String comment = null;
+
+        public Game() {
+        }
+
+        /**
+         * Start a game to be written, with the seven tags every game has and the date set to today.
+         *
+         * @param event the name of the event
+         * @param round the round, a game number for example
+         * @param white the name of the White player
+         * @param black the name of the Black player
+         * @param start the board the game starts from
+         */
+        public Game(String event, String round, String white, String black, LiteBoard start) {
+            for (String name : SEVEN_TAG_ROSTER) {
+                tags.put(name, "?");
+            }
+            tags.put("Event", event);
+            tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+            tags.put("Round", round);
+            tags.put("White", white);
+            tags.put("Black", black);
+            tags.put("Result", "*");
+
+            String fen = FEN.encode(start);
+            if (!fen.equals(START_FEN)) {
+                tags.put("SetUp", "1");
+                tags.put("FEN", fen);
+            }
+        }
+
+        /**
+         * Add the next move of the game.  Call this before the move is made.
+         *
+         * @param board the board the move is made on
+         * @param move  the move
+         */
+        public void addMove(LiteBoard board, Move move) {
+            moves.add(SAN.encode(board, move));
+        }
+
+        /**
+         * Set how the game ended.
+         *
+         * @param result  1-0, 0-1, 1/2-1/2 or *
+         * @param comment why it ended, written as a comment after the last move, or null
+         */
+        public void setResult(String result, String comment) {
+            this.result = result;
+            this.comment = comment;
+            tags.put("Result", result);
+        }
+
+        /**
+         * @param name the name of a tag like Event or White
+         * @return the tag's value or null if the game doesn't have it
+         */
+        public String tag(String name) {
+            return tags.get(name);
+        }
+
+        /**
+         * @return the game's result, from the end of the moves or else the Result tag, or * if it isn't known
+         */
+        public String getResult() {
+            if (result != null) return result;
+            return tags.getOrDefault("Result", "*");
+        }
+
+        /**
+         * @return the FEN of the position the game started from or null if it started from the usual position
+         */
+        public String getStartFEN() {
+            return tags.get("FEN");
+        }
+    }
+
+    /**
+     * A Reader parses the games of a PGN file one at a time without reading the whole file.
+     */
+    public static class Reader implements Closeable {
+        private final PushbackReader in;
+
+        public Reader(java.io.Reader in) {
+            this.in = new PushbackReader(in instanceof BufferedReader ? in : new BufferedReader(in, 1 << 16));
+        }
+
+        public Reader(String filename) throws IOException {
+            this(new BufferedReader(new FileReader(filename), 1 << 16));
+        }
+
+        /**
+         * Parse the next game.
+         *
+         * @return the game or null at the end of the file
+         * @throws IOException if the file can't be read
+         */
+        public Game read() throws IOException {
+            Game game = null;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (Character.isWhitespace(c)) continue;
+
+                switch (c) {
+                    case '[':
+                        if (game != null && !game.moves.isEmpty()) {
+                            // the tags of the next game; this one had no result at the end
+                            in.unread(c);
+                            return game;
+                        }
+                        if (game == null) game = new Game();
+                        readTag(game);
+                        break;
+                    case '{':
+                        skipTo('}');
+                        break;
+                    case ';':
+                    case '%':
+                        skipTo('\n');
+                        break;
+                    case '(':
+                        skipVariation();
+                        break;
+                    default:
+                        String token = readToken(c);
+                        if (isResult(token)) {
+                            if (game == null) game = new Game();
+                            game.result = token;
+                            return game;
+                        }
+                        String move = stripMoveNumber(token);
+                        if (!move.isEmpty() && move.charAt(0) != '$') {
+                            if (game == null) game = new Game();
+                            game.moves.add(move);
+                        }
+                        break;
+                }
+            }
+            return game;
+        }
+
+        // [Name "value"] with the [ already read; \" and \\ may be escaped in the value
+        private void readTag(final Game game) throws IOException {
+            StringBuilder name = new StringBuilder();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            int c;
+            while ((c = in.read()) != -1) {
+                if (quoted) {
+                    if (c == '\\') {
+                        int escaped = in.read();
+                        if (escaped != -1) value.append((char) escaped);
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        value.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ']' || c == '\n') {
+                    break;
+                } else if (!Character.isWhitespace(c) && value.length() == 0) {
+                    name.append((char) c);
+                }
+            }
+            if (name.length() > 0) {
+                game.tags.put(name.toString(), value.toString());
+            }
+        }
+
+        private void skipTo(final int end) throws IOException {
+            int c;
+            do {
+                c = in.read();
+            } while (c != -1 && c != end);
+        }
+
+        // skip a variation, the ( already read, along with any variations and comments inside it
+        private void skipVariation() throws IOException {
+            int depth = 1;
+            int c;
+            while (depth > 0 && (c = in.read()) != -1) {
+                if (c == '(') depth++;
+                else if (c == ')') depth--;
+                else if (c == '{') skipTo('}');
+                else if (c == ';') skipTo('\n');
+            }
+        }
+
+        private String readToken(final int first) throws IOException {
+            StringBuilder token = new StringBuilder();
+            token.append((char) first);
+            int c;
+            while ((c = in.read()) != -1) {
+                if (Character.isWhitespace(c)) break;
+                if ("{}()[];".indexOf(c) >= 0) {
+                    in.unread(c);
+                    break;
+                }
+                token.append((char) c);
+            }
+            return token.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * A Writer appends games to a PGN file.  Games can be written from any thread.
+     */
+    public static class Writer implements Closeable {
+        private final java.io.Writer out;
+
+        /**
+         * @param filename the PGN file, added to if it is already there
+         * @throws IOException if the file can't be opened
+         */
+        public Writer(String filename) throws IOException {
+            this.out = new BufferedWriter(new FileWriter(filename, true));
+        }
+
+        /**
+         * Write a game and flush it to the file so it isn't lost if the program stops.
+         *
+         * @param game the game
+         * @throws IOException if the game can't be written
+         */
+        public synchronized void write(Game game) throws IOException {
+            out.write(format(game));
+            out.write(System.lineSeparator());
+            out.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Format a game in PGN: its tags, then its moves with move numbers wrapped into
+     * lines, then its result.
+     *
+     * @param game the game
+     * @return the game's text, ending with a line separator
+     */
+    public static String format(final Game game) {
+        String nl = System.lineSeparator();
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> tag : game.tags.entrySet()) {
+            String value = tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"");
+            text.append('[').append(tag.getKey()).append(" \"").append(value).append("\"]").append(nl);
+        }
+        text.append(nl);
+
+        // the move number and side to move of the first move come from the starting FEN
+        String[] fen = (game.getStartFEN() == null) ? new String[0] : game.getStartFEN().split("\\s+");
+        boolean white = fen.length < 2 || !fen[1].equals("b");
+        int number = (fen.length >= 6 && fen[5].matches("\\d+")) ? Integer.parseInt(fen[5]) : 1;
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < game.moves.size(); i++) {
+            if (white) {
+                tokens.add(number + ". " + game.moves.get(i));
+            } else {
+                tokens.add((i == 0) ? number + "... " + game.moves.get(i) : game.moves.get(i));
+                number++;
+            }
+            white = !white;
+        }
+        if (game.comment != null) {
+            tokens.add("{" + game.comment.replace("}", ")") + "}");
+        }
+        tokens.add(game.getResult());
+
+        int lineStart = text.length();
+        for (String token : tokens) {
+            if (text.length() > lineStart) {
+                if (text.length() - lineStart + 1 + token.length() >= LINE_LENGTH) {
+                    text.append(nl);
+                    lineStart = text.length();
+                } else {
+                    text.append(' ');
+                }
+            }
+            text.append(token);
+        }
+        text.append(nl);
+        return text.toString();
+    }
+
+    static boolean isResult(final String token) {
+        for (String result : RESULTS) {
+            if (result.equals(token)) return true;
+        }
+        return false;
+    }
+
+    // 12.e4 and 12...e5 both leave just the move; a bare 12. or 12 leaves nothing
+    static String stripMoveNumber(final String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) i++;
+        if (i == token.length()) return "";
+        if (i == 0 || token.charAt(i) != '.') return token;
+        while (i < token.length() && token.charAt(i) == '.') i++;
+        return token.substring(i);
+    }
+
+    /**
+     * Set up the position a game starts from.
+     *
+     * @param game the game
+     * @return a board with the game's starting position, its moves ready
+     */
+    public static LiteBoard startBoard(final Game game) {
+        LiteBoard board = new LiteBoard();
+        String fen = game.getStartFEN();
+        if (fen != null) {
+            EngineTuningTests.setupBoard(board, fen);
+        }
+        return board;
+    }
+
+    /**
+     * Play a game's moves out on its starting position, stopping at the first move that
+     * can't be read or isn't legal.
+     *
+     * @param game    the game
+     * @param visitor told about each move with the board before the move is made; the
+     *                board must not be changed
+     * @return the number of moves played, fewer than the game's moves if one wasn't legal
+     */
+    public static int replay(final Game game, final MoveVisitor visitor) {
+        LiteBoard board = startBoard(game);
+        int count = 0;
+        for (String san : game.moves) {
+            Move move = SAN.decode(board, san);
+            if (move == null) break;
+            visitor.visit(board, move);
+            board.executeMove(move);
+            board.advanceTurn();
+            count++;
+        }
+        return count;
+    }
+
+    // Told about each move of a game replay
+    public interface MoveVisitor {
+        void visit(LiteBoard board, Move move);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * The SAN class reads and writes moves in Standard Algebraic Notation (Nf3, exd5,
+ * O-O, e8=Q+) on a LiteBoard, the notation used by EPD test suites and PGN files.
+ * <p>
+ * Pawns always promote to queens on this board so promotions are written as =Q, and
+ * a promotion to any other piece is read as a move the board can't play.
+ */
+public class SAN {
+    private static final String PIECE_LETTERS = " PNBRQK";
+
+    /**
+     * Write a legal move in SAN.
+     *
+     * @param board the board the move is made on, with the mover's turn
+     * @param move  the move
+     * @return the move in SAN including + or # if it gives check or mate
+     */
+    public static String encode(LiteBoard board, Move move) {
+        int type = board.getType(move.getFrom());
+        StringBuilder san = new StringBuilder();
+
+        if (type == LiteBoard.King && Math.abs(move.getToCol() - move.getFromCol()) == 2) {
+            san.append((move.getToCol() > move.getFromCol()) ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = !board.isEmpty(move.getTo())
+                    || (type == LiteBoard.Pawn && move.getFromCol() != move.getToCol());
+
+            if (type == LiteBoard.Pawn) {
+                if (capture) {
+                    san.append(file(move.getFromCol()));
+                }
+            } else {
+                san.append(PIECE_LETTERS.charAt(type));
+                san.append(disambiguation(board, move, type));
+            }
+            if (capture) {
+                san.append('x');
+            }
+            san.append(file(move.getToCol())).append(rank(move.getToRow()));
+
+            if (type == LiteBoard.Pawn && (move.getToRow() == 0 || move.getToRow() == 7)) {
+                san.append("=Q");
+            }
+        }
+
+        LiteBoard after = new LiteBoard(board, false);
+        after.executeMove(move);
+        after.advanceTurn();
+        if (after.kingInCheck(after.turn)) {
+            after.ensureMoves1();
+            san.append((after.numMoves1 == 0) ? '#' : '+');
+        }
+        return san.toString();
+    }
+
+    /**
+     * Find the legal move a move in SAN stands for.  Check and annotation marks are
+     * ignored and castling may be written with zeros.
+     *
+     * @param board the board the move is made on, with the mover's turn
+     * @param text  the move in SAN
+     * @return the move or null if it isn't a legal move on the board, is ambiguous or
+     * promotes to anything but a queen
+     */
+    public static Move decode(LiteBoard board, String text) {
+        String san = text.replace("e.p.", "").replaceAll("[+#!?]", "").trim();
+        board.ensureMoves1();
+
+        if (san.equals("O-O") || san.equals("0-0") || san.equals("O-O-O") || san.equals("0-0-0")) {
+            int delta = (san.length() == 3) ? 2 : -2;
+            for (int i = 0; i < board.numMoves1; i++) {
+                Move move = board.moves1[i];
+                if (board.getType(move.getFrom()) == LiteBoard.King
+                        && move.getToCol() - move.getFromCol() == delta) {
+                    return move;
+                }
+            }
+            return null;
+        }
+
+        // drop a promotion piece, e8=Q or e8Q; the board can only promote to a queen
+        char promotion = 0;
+        int equals = san.indexOf('=');
+        if (equals >= 0) {
+            promotion = (equals + 1 < san.length()) ? san.charAt(equals + 1) : 0;
+            san = san.substring(0, equals);
+        } else if (san.length() > 2 && "QRBN".indexOf(san.charAt(san.length() - 1)) >= 0
+                && Character.isDigit(san.charAt(san.length() - 2))) {
+            promotion = san.charAt(san.length() - 1);
+            san = san.substring(0, san.length() - 1);
+        }
+        if (promotion != 0 && promotion != 'Q') return null;
+        if (san.length() < 2) return null;
+
+        int type = LiteBoard.Pawn;
+        int start = 0;
+        int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letter > LiteBoard.Pawn) {
+            type = letter;
+            start = 1;
+        }
+
+        int toCol = san.charAt(san.length() - 2) - 'a';
+        int toRow = '8' - san.charAt(san.length() - 1);
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) return null;
+
+        // whatever is left between the piece and the destination says which piece moves
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < san.length() - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != '-' && c != ':') {
+                return null;
+            }
+        }
+
+        Move found = null;
+        for (int i = 0; i < board.numMoves1; i++) {
+            Move move = board.moves1[i];
+            if (move.getToCol() != toCol || move.getToRow() != toRow) continue;
+            if (board.getType(move.getFrom()) != type) continue;
+            if (fromCol >= 0 && move.getFromCol() != fromCol) continue;
+            if (fromRow >= 0 && move.getFromRow() != fromRow) continue;
+            if (found != null) return null;
+            found = move;
+        }
+        return found;
+    }
+
+    // the file and/or rank needed to tell a piece's move from the same kind of piece's move to the same spot
+    private static String disambiguation(LiteBoard board, Move move, int type) {
+        board.ensureMoves1();
+        boolean others = false;
+        boolean sameCol = false;
+        boolean sameRow = false;
+        for (int i = 0; i < board.numMoves1; i++) {
+            Move other = board.moves1[i];
+            if (other.getTo() != move.getTo() || other.getFrom() == move.getFrom()) continue;
+            if (board.getType(other.getFrom()) != type) continue;
+            others = true;
+            sameCol |= other.getFromCol() == move.getFromCol();
+            sameRow |= other.getFromRow() == move.getFromRow();
+        }
+        if (!others) return "";
+        if (!sameCol) return "" + file(move.getFromCol());
+        if (!sameRow) return "" + rank(move.getFromRow());
+        return "" + file(move.getFromCol()) + rank(move.getFromRow());
+    }
+
+    private static char file(int col) {
+        return (char) ('a' + col);
+    }
+
+    private static char rank(int row) {
+        return (char) ('8' - row);
+    }
+}
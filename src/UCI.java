@@ -0,0 +1,408 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The UCI class lets the engine be driven by a chess GUI or match program over the
+ * Universal Chess Interface on stdin and stdout, without the console display.
+ * <p>
+ * The commands handled are uci, isready, ucinewgame, setoption (Hash, Threads and OwnBook),
+ * position (startpos or fen, then moves), go (wtime, btime, winc, binc, movestogo,
+ * movetime, depth, nodes and infinite), stop and quit.  The search runs on its own
+ * thread so stop and isready are answered while it is thinking.
+ * <p>
+ * A go with a clock, movetime, nodes or infinite searches one ply deeper at a time up
+ * to the depth (the configured one unless it gives a depth) and plays the move of the
+ * last depth it finished when it runs out or is stopped.
+ */
+public class UCI {
+    private static final String NAME = "JavaChess";
+    private static final String AUTHOR = "Trent M. Wyatt";
+
+    // the depth searched for go infinite; it won't finish, it just runs until stop
+    private static final int INFINITE_DEPTH = 64;
+
+    // time kept back from each move for talking to the GUI
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    private static final int DEFAULT_HASH_MB = 4;
+    private static final int MAX_HASH_MB = 4096;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final int defaultDepth;
+
+    private LiteBoard board;
+    private LiteMinimax agent;
+    private int hashMegabytes = DEFAULT_HASH_MB;
+    private boolean ownBook = (Main.book != null);
+
+    private final ExecutorService searchThread = LiteExecutors.newCoordinatorExecutor();
+    private Future<?> search = null;
+    private volatile CountDownLatch stopRequested = new CountDownLatch(0);
+
+    // the last real score sent for the running search, for info lines that don't have one
+    private volatile String lastScore = null;
+
+    public UCI(BufferedReader in, PrintStream out, int defaultDepth) {
+        this.in = in;
+        this.out = out;
+        this.defaultDepth = defaultDepth;
+        this.board = newBoard();
+        this.agent = newAgent();
+    }
+
+    /**
+     * Talk UCI on stdin and stdout until quit or the end of the input.
+     *
+     * @param defaultDepth the ply depth to search to when go doesn't give one
+     */
+    public static void run(int defaultDepth) {
+        UCI uci = new UCI(new BufferedReader(new InputStreamReader(System.in)), System.out, defaultDepth);
+        try {
+            uci.loop();
+        } catch (IOException e) {
+            Main.log(Main.LogLevel.ERROR, "UCI input failed: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Read and handle commands until quit or the end of the input.
+     *
+     * @throws IOException if the input can't be read
+     */
+    public void loop() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) break;
+        }
+        stop();
+        searchThread.shutdown();
+    }
+
+    /**
+     * Handle one command.
+     *
+     * @param line the command line
+     * @return false if the command was quit
+     */
+    boolean handle(String line) {
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send(String.format("option name Hash type spin default %d min 1 max %d", DEFAULT_HASH_MB, MAX_HASH_MB));
+                send(String.format("option name Threads type spin default %d min 1 max %d",
+                        LiteExecutors.getPoolSize(), Runtime.getRuntime().availableProcessors()));
+                if (Main.book != null) {
+                    send("option name OwnBook type check default true");
+                }
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stop();
+                board = newBoard();
+                agent = newAgent();
+                break;
+            case "setoption":
+                stop();
+                setOption(line);
+                break;
+            case "position":
+                stop();
+                position(words);
+                break;
+            case "go":
+                stop();
+                go(words);
+                break;
+            case "stop":
+                stop();
+                break;
+            case "quit":
+                return false;
+            default:
+                // unknown commands are ignored as the protocol asks
+                break;
+        }
+        return true;
+    }
+
+    private LiteBoard newBoard() {
+        LiteBoard fresh = new LiteBoard();
+        if (Main.config != null) {
+            fresh.maxRep = Main.config.maxDrawReps;
+        }
+        return fresh;
+    }
+
+    private LiteMinimax newAgent() {
+        LiteMinimax fresh = new LiteMinimax("", defaultDepth, 0);
+        fresh.setEvalCacheSize(hashMegabytes);
+        fresh.setBook(ownBook ? Main.book : null);
+        fresh.addSearchListener(this::info);
+        return fresh;
+    }
+
+    private void setOption(String line) {
+        // setoption name <id> value <x>
+        int nameAt = line.indexOf(" name ");
+        int valueAt = line.indexOf(" value ");
+        if (nameAt < 0 || valueAt < nameAt) return;
+        String name = line.substring(nameAt + 6, valueAt).trim();
+        String value = line.substring(valueAt + 7).trim();
+
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                hashMegabytes = Integer.max(1, Integer.min(MAX_HASH_MB, Integer.parseInt(value)));
+                agent.setEvalCacheSize(hashMegabytes);
+            } else if (name.equalsIgnoreCase("Threads")) {
+                LiteExecutors.setMaxThreads(Integer.max(1, Integer.parseInt(value)));
+            } else if (name.equalsIgnoreCase("OwnBook")) {
+                ownBook = value.equalsIgnoreCase("true");
+                agent.setBook(ownBook ? Main.book : null);
+            }
+        } catch (NumberFormatException e) {
+            send("info string bad value for " + name + ": " + value);
+        }
+    }
+
+    // position [startpos | fen <fen>] [moves <move> ...]
+    private void position(String[] words) {
+        LiteBoard next = newBoard();
+        int ndx = 1;
+        if (ndx < words.length && words[ndx].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (ndx++; ndx < words.length && !words[ndx].equals("moves"); ndx++) {
+                fen.append(words[ndx]).append(' ');
+            }
+            FEN.decode(next, fen.toString().trim());
+        } else if (ndx < words.length && words[ndx].equals("startpos")) {
+            ndx++;
+        }
+
+        if (ndx < words.length && words[ndx].equals("moves")) {
+            for (ndx++; ndx < words.length; ndx++) {
+                Move move = findMove(next, words[ndx]);
+                if (move == null) {
+                    send("info string illegal move " + words[ndx]);
+                    break;
+                }
+                next.executeMove(move);
+                next.advanceTurn();
+            }
+        }
+        board = next;
+    }
+
+    /**
+     * Find the legal move on a board that a move in UCI notation like e2e4 or e7e8q stands
+     * for.  Pawns always promote to queens on this board so any promotion piece is accepted.
+     *
+     * @param board the board the move is made on
+     * @param text  the move in UCI notation
+     * @return the move or null if it isn't legal on the board
+     */
+    public static Move findMove(LiteBoard board, String text) {
+        if (text.length() < 4) return null;
+        int fromCol = text.charAt(0) - 'a';
+        int fromRow = '8' - text.charAt(1);
+        int toCol = text.charAt(2) - 'a';
+        int toRow = '8' - text.charAt(3);
+
+        board.ensureMoves1();
+        for (int i = 0; i < board.numMoves1; i++) {
+            Move move = board.moves1[i];
+            if (move.getFromCol() == fromCol && move.getFromRow() == fromRow
+                    && move.getToCol() == toCol && move.getToRow() == toRow) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param board the board the move is made on
+     * @param move  the move
+     * @return the move in UCI notation, with a q on the end if a pawn promotes
+     */
+    public static String toUci(LiteBoard board, Move move) {
+        String text = String.format("%c%d%c%d",
+                'a' + move.getFromCol(), 8 - move.getFromRow(),
+                'a' + move.getToCol(), 8 - move.getToRow());
+        if (board.getType(move.getFrom()) == LiteBoard.Pawn && (move.getToRow() == 0 || move.getToRow() == 7)) {
+            text += "q";
+        }
+        return text;
+    }
+
+    // go [wtime x] [btime x] [winc x] [binc x] [movestogo x] [movetime x] [depth x] [nodes x] [infinite]
+    private void go(String[] words) {
+        long wtime = 0, btime = 0, winc = 0, binc = 0, movestogo = 0, movetime = 0, nodes = 0;
+        int depth = 0;
+        boolean infinite = false;
+        for (int i = 1; i < words.length; i++) {
+            String word = words[i];
+            if (word.equals("infinite")) {
+                infinite = true;
+                continue;
+            }
+            if (i + 1 >= words.length) break;
+            long value;
+            try {
+                value = Long.parseLong(words[i + 1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            switch (word) {
+                case "wtime": wtime = value; i++; break;
+                case "btime": btime = value; i++; break;
+                case "winc": winc = value; i++; break;
+                case "binc": binc = value; i++; break;
+                case "movestogo": movestogo = value; i++; break;
+                case "movetime": movetime = value; i++; break;
+                case "depth": depth = (int) value; i++; break;
+                case "nodes": nodes = value; i++; break;
+                default: break;
+            }
+        }
+
+        long timeLimit = 0;
+        if (!infinite) {
+            long time = (board.turn == Side.White) ? wtime : btime;
+            long inc = (board.turn == Side.White) ? winc : binc;
+            if (movetime > 0) {
+                timeLimit = Long.max(1, movetime - MOVE_OVERHEAD_MILLIS);
+            } else if (time > 0) {
+                long togo = (movestogo > 0) ? movestogo : 30;
+                timeLimit = time / togo + inc * 3 / 4 - MOVE_OVERHEAD_MILLIS;
+                timeLimit = Long.max(1, Long.min(timeLimit, time / 2));
+            }
+        }
+
+        agent.setDepth((depth > 0) ? depth : (infinite ? INFINITE_DEPTH : defaultDepth));
+        agent.setTimeLimit(timeLimit);
+        agent.setNodeLimit(nodes);
+        agent.setDeepening(infinite);
+
+        final LiteBoard searchBoard = new LiteBoard(board);
+        final boolean holdUntilStop = infinite;
+        stopRequested = new CountDownLatch(holdUntilStop ? 1 : 0);
+        lastScore = null;
+        search = searchThread.submit(() -> think(searchBoard, holdUntilStop));
+    }
+
+    // search the board and send the best move, on the search thread; the search sends the info lines
+    private void think(LiteBoard searchBoard, boolean holdUntilStop) {
+        Move move = agent.bestMove(searchBoard, false);
+
+        // go infinite has to wait for stop before it answers
+        try {
+            stopRequested.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        send("bestmove " + ((move == null) ? "0000" : toUci(searchBoard, move)));
+    }
+
+    // send the progress of a search, on whichever search thread sent it
+    private void info(LiteSearchInfo info) {
+        StringBuilder line = new StringBuilder(String.format(
+                "info depth %d seldepth %d nodes %d nps %d hashfull %d time %d",
+                info.depth, info.selDepth, info.nodes, info.nps, info.hashFull, info.millis));
+
+        if (info.pv.length > 0) {
+            String score = info.finished ? rootScore(info.board, info.pv[0]) : null;
+            if (score == null) score = score(info.value, info.board.turn, info.depth);
+            // a pv only goes out with a score, the last one sent while the search has no value of its own
+            if (score == null) score = lastScore;
+            if (score != null) {
+                lastScore = score;
+                line.append(" score ").append(score);
+
+                line.append(" pv");
+                LiteBoard board = new LiteBoard(info.board, false);
+                for (Move move : info.pv) {
+                    line.append(' ').append(toUci(board, move));
+                    board.executeMove(move);
+                    board.advanceTurn();
+                }
+            }
+        }
+        send(line.toString());
+    }
+
+    // mate 1 or a stalemate score if the move leaves the other side with no moves, otherwise null
+    private static String rootScore(LiteBoard searchBoard, Move move) {
+        LiteBoard after = new LiteBoard(searchBoard, false);
+        after.executeMove(move);
+        after.advanceTurn();
+        after.ensureMoves1();
+        if (after.numMoves1 > 0) return null;
+        return after.kingInCheck(after.turn) ? "mate 1" : "cp 0";
+    }
+
+    /**
+     * @param value the score of a search, positive in White's favor
+     * @param turn  the side to move
+     * @param depth the depth the search went to
+     * @return the score in UCI form from the side to move's point of view, cp n or mate n,
+     * or null if the value is the bound a search starts from rather than a real score
+     */
+    static String score(int value, int turn, int depth) {
+        int own = (turn == Side.White) ? value : -value;
+        // a mate is scored MAX_VALUE less the distance from ply 100 of the ply depth left when it was found,
+        // which goes below zero when it is found among the captures searched past the end of the search
+        int fromMax = LiteUtil.MAX_VALUE - Math.abs(own);
+        if (fromMax == 0) return null;
+        if (fromMax <= 100 + LiteMinimax.QUIESCENCE_DEPTH) {
+            int pliesLeft = 100 - fromMax;
+            int plies = Integer.max(1, depth - pliesLeft + 1);
+            int moves = (plies + 1) / 2;
+            return "mate " + ((own > 0) ? moves : -moves);
+        }
+        return "cp " + own / LiteEval.positionScale;
+    }
+
+    // stop any search that is running and wait for it to send its best move
+    private void stop() {
+        Future<?> running = search;
+        if (running == null) return;
+
+        stopRequested.countDown();
+        while (!running.isDone()) {
+            // the search may not have started yet, in which case it would clear an earlier request
+            agent.cancelSearch(0);
+            try {
+                running.get(20, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // keep asking
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                Main.log(Main.LogLevel.ERROR, "UCI search failed: %s", e.getCause());
+                break;
+            }
+        }
+        search = null;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class BookBuilderTest {
+    private static final int MAX_PLIES = 30;
+
+    // BookBuilder's smallest map has 1,024 slots and is written to a run at 70% full
+    private static final int SMALL_MAP_ENTRIES = 716;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static PGN.Game game(final LiteBoard board, final String result) {
+        PGN.Game game = new PGN.Game("BookBuilderTest", "?", "?", "?", board);
+        game.setResult(result, null);
+        return game;
+    }
+
+    // a game of the moves given in SAN
+    private static PGN.Game line(final String moves, final String result) {
+        LiteBoard board = new LiteBoard();
+        PGN.Game game = game(board, result);
+        for (String san : moves.split(" ")) {
+            Move move = SAN.decode(board, san);
+            assertNotNull(san, move);
+            game.addMove(board, move);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        return game;
+    }
+
+    // a game of random legal moves
+    private static PGN.Game randomGame(final Random random, final String result) {
+        LiteBoard board = new LiteBoard();
+        PGN.Game game = game(board, result);
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            board.ensureMoves1();
+            if (board.numMoves1 == 0) break;
+            Move move = board.moves1[random.nextInt(board.numMoves1)];
+            game.addMove(board, move);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        return game;
+    }
+
+    private File writeGames() throws IOException {
+        File file = folder.newFile("games.pgn");
+        String[] results = {"1-0", "0-1", "1/2-1/2"};
+        Random random = new Random(49);
+        try (PGN.Writer writer = new PGN.Writer(file.getPath())) {
+            for (int n = 0; n < 300; n++) {
+                writer.write(randomGame(random, results[n % results.length]));
+            }
+            // after 1.e4 e5 2.Nf3 Black drew with Nc6 and lost every game with Nf6
+            for (int n = 0; n < 10; n++) {
+                writer.write(line("e4 e5 Nf3 Nc6 Bb5", "1/2-1/2"));
+                writer.write(line("e4 e5 Nf3 Nf6 Nxe5", "1-0"));
+            }
+        }
+        return file;
+    }
+
+    private File build(final File games, final int megabytes, final String name) throws IOException {
+        BookBuilder builder = new BookBuilder(MAX_PLIES, 1, megabytes);
+        builder.addGames(games.getPath());
+        File book = new File(folder.getRoot(), name);
+        long written = builder.write(book.getPath());
+        assertEquals(written * 16, book.length());
+        return book;
+    }
+
+    @Test
+    public void testRunsMergeIntoTheSameBook() throws IOException {
+        Main.options = new HashMap<>();
+        File games = writeGames();
+        File merged = build(games, 0, "merged.bin");
+        File whole = build(games, 64, "whole.bin");
+
+        // more entries than two of the small map's runs can hold, so it wrote at least three
+        assertTrue(merged.length() / 16 > 2 * SMALL_MAP_ENTRIES);
+        assertArrayEquals(Files.readAllBytes(whole.toPath()), Files.readAllBytes(merged.toPath()));
+    }
+
+    @Test
+    public void testPickReadsTheBookBack() throws IOException {
+        Main.options = new HashMap<>();
+        PolyglotBook book = PolyglotBook.open(build(writeGames(), 0, "book.bin").getPath());
+
+        LiteBoard board = new LiteBoard();
+        for (String san : "e4 e5 Nf3".split(" ")) {
+            Move move = SAN.decode(board, san);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        // Nf6 never scored so it was left out and Nc6 is the only move
+        Move nc6 = SAN.decode(board, "Nc6");
+        for (int n = 0; n < 10; n++) {
+            assertEquals(nc6, book.pick(board));
+        }
+
+        board.executeMove(nc6);
+        board.advanceTurn();
+        assertEquals(SAN.decode(board, "Bb5"), book.pick(board));
+
+        assertNotNull(book.pick(new LiteBoard()));
+        LiteBoard kings = new LiteBoard();
+        EngineTuningTests.setupBoard(kings, "7k/8/8/8/8/8/8/K7 w - - 0 1");
+        assertNull(book.pick(kings));
+    }
+}
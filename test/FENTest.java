@@ -0,0 +1,78 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class FENTest {
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    // the placement, side to move, castling and en passant fields, which the board keeps
+    private static String position(final String fen) {
+        String[] fields = fen.split(" ");
+        return String.join(" ", fields[0], fields[1], fields[2], fields[3]);
+    }
+
+    private static void assertRoundTrip(final String fen) {
+        assertEquals(position(fen), position(FEN.encode(setup(fen))));
+    }
+
+    @Test
+    public void testStartingPosition() {
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -", position(FEN.encode(new LiteBoard())));
+        assertRoundTrip("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+    }
+
+    @Test
+    public void testCastlingRights() {
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 0 1");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w Qk - 0 1");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+
+        // only the rights the FEN gives can be used
+        LiteBoard board = setup("r3k2r/8/8/8/8/8/8/R3K2R w Kq - 0 1");
+        assertNotNull(SAN.decode(board, "O-O"));
+        assertNull(SAN.decode(board, "O-O-O"));
+        board = setup("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 0 1");
+        assertNull(SAN.decode(board, "O-O"));
+        assertNotNull(SAN.decode(board, "O-O-O"));
+    }
+
+    @Test
+    public void testEnPassant() {
+        String white = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3";
+        assertRoundTrip(white);
+        LiteBoard board = setup(white);
+        assertNotNull("exf6 e.p.", UCI.findMove(board, "e5f6"));
+        assertNull("the d pawn moved two moves ago", UCI.findMove(board, "e5d6"));
+
+        String black = "rnbqkbnr/ppp1pppp/8/8/2Pp4/4P3/PP1P1PPP/RNBQKBNR b KQkq c3 0 3";
+        assertRoundTrip(black);
+        assertNotNull("dxc3 e.p.", UCI.findMove(setup(black), "d4c3"));
+
+        // without the field there's no en passant capture
+        assertNull(UCI.findMove(setup("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq - 0 3"), "e5f6"));
+    }
+
+    @Test
+    public void testEncodeAfterMoves() {
+        LiteBoard board = new LiteBoard();
+        for (String san : new String[]{"e4", "c5", "Nf3"}) {
+            Move move = SAN.decode(board, san);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq -", position(FEN.encode(board)));
+
+        board.executeMove(SAN.decode(board, "d5"));
+        board.advanceTurn();
+        assertEquals("rnbqkbnr/pp2pppp/8/2pp4/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq d6", position(FEN.encode(board)));
+        board.executeMove(SAN.decode(board, "Ke2"));
+        board.advanceTurn();
+        assertEquals("rnbqkbnr/pp2pppp/8/2pp4/4P3/5N2/PPPPKPPP/RNBQ1B1R b kq -", position(FEN.encode(board)));
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.Test;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class IncrementalScoreTest {
+    @Test
+    public void testRunningScoresMatchRecountInRandomGames() {
+        Random random = new Random(20191018L);
+        for (int game = 0; game < 25; game++) {
+            LiteBoard board = new LiteBoard();
+            for (int ply = 0; ply < 200; ply++) {
+                board.ensureMoves1();
+                if (board.numMoves1 == 0) break;
+                board.executeMove(board.moves1[random.nextInt(board.numMoves1)]);
+                board.advanceTurn();
+
+                LiteBoard recount = new LiteBoard(board);
+                recount.refreshScores();
+                assertEquals("white material", recount.whtMaterial, board.whtMaterial);
+                assertEquals("black material", recount.blkMaterial, board.blkMaterial);
+                assertEquals("white middlegame", recount.whtMiddlegame, board.whtMiddlegame);
+                assertEquals("black middlegame", recount.blkMiddlegame, board.blkMiddlegame);
+                assertEquals("white endgame", recount.whtEndgame, board.whtEndgame);
+                assertEquals("black endgame", recount.blkEndgame, board.blkEndgame);
+                assertEquals("phase", recount.phase, board.phase);
+                assertEquals("pawn key", recount.pawnKey, board.pawnKey);
+                assertEquals("hash key", recount.hashKey, board.hashKey);
+            }
+        }
+    }
+
+    @Test
+    public void testNetworkAccumulatorsMatchRecountInRandomGames() {
+        LiteNNUE net = LiteNNUE.random(16, 8, 8, 7L);
+        LiteNNUE.use(net);
+        try {
+            Random random = new Random(20191019L);
+            for (int game = 0; game < 10; game++) {
+                LiteBoard board = new LiteBoard();
+                for (int ply = 0; ply < 200; ply++) {
+                    board.ensureMoves1();
+                    if (board.numMoves1 == 0) break;
+                    board.executeMove(board.moves1[random.nextInt(board.numMoves1)]);
+                    board.advanceTurn();
+
+                    LiteBoard recount = new LiteBoard(board);
+                    recount.refreshScores();
+                    assertArrayEquals("white accumulator", recount.whtAccumulator, board.whtAccumulator);
+                    assertArrayEquals("black accumulator", recount.blkAccumulator, board.blkAccumulator);
+                    assertEquals("evaluation", net.evaluate(recount), LiteEval.evaluate(board));
+                }
+            }
+        } finally {
+            LiteNNUE.use(null);
+        }
+    }
+
+    @Test
+    public void testRunningScoresAfterEnPassant() {
+        LiteBoard board = new LiteBoard();
+        int[][] moves = {
+                {4, 6, 4, 4},   // e2-e4
+                {0, 1, 0, 2},   // a7-a6
+                {4, 4, 4, 3},   // e4-e5
+                {3, 1, 3, 3},   // d7-d5
+                {4, 3, 3, 2},   // e5xd6 en passant
+        };
+        for (int[] m : moves) {
+            board.executeMove(new Move(m[0], m[1], m[2], m[3], 0));
+            board.advanceTurn();
+        }
+        assertTrue("captured pawn should be gone", board.isEmpty(3 + 3 * 8));
+
+        LiteBoard recount = new LiteBoard(board);
+        recount.refreshScores();
+        assertEquals(recount.whtMaterial, board.whtMaterial);
+        assertEquals(recount.blkMaterial, board.blkMaterial);
+        assertEquals(recount.whtMiddlegame, board.whtMiddlegame);
+        assertEquals(recount.blkMiddlegame, board.blkMiddlegame);
+        assertEquals(recount.whtEndgame, board.whtEndgame);
+        assertEquals(recount.blkEndgame, board.blkEndgame);
+        assertEquals(recount.phase, board.phase);
+        assertEquals(LiteUtil.getValue(LiteBoard.Pawn), board.whtMaterial - board.blkMaterial);
+    }
+}
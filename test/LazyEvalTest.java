@@ -0,0 +1,61 @@
+import org.junit.Test;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class LazyEvalTest {
+    // Every suite position and the positions of short random games played from each
+    @Test
+    public void testMarginBoundsExtraTermsOnSuitePositions() {
+        String[][] suites = {
+                EngineTuningTests.suite1, EngineTuningTests.suite2, EngineTuningTests.silentButDeadly,
+                EngineTuningTests.kaufmanTest, EngineTuningTests.bratkoKopecTest, EngineTuningTests.epdSet
+        };
+        int margin = LiteEval.lazyMargin();
+        int largest = 0;
+        Random random = new Random(20191020L);
+        for (String[] suite : suites) {
+            for (String fen : suite) {
+                for (int game = 0; game < 4; game++) {
+                    LiteBoard board = new LiteBoard();
+                    EngineTuningTests.setupBoard(board, fen);
+                    for (int ply = 0; ply < 40; ply++) {
+                        int extra = Math.abs(LiteEval.extraScore(board, LiteEval.ALL));
+                        assertTrue(String.format("extra terms %d over the margin %d in %s", extra, margin, FEN.encode(board)),
+                                extra < margin);
+                        largest = Integer.max(largest, extra);
+
+                        board.ensureMoves1();
+                        if (board.numMoves1 == 0) break;
+                        board.executeMove(board.moves1[random.nextInt(board.numMoves1)]);
+                        board.advanceTurn();
+                    }
+                }
+            }
+        }
+        assertTrue("the extra terms should come near the margin", largest > margin / 2);
+    }
+
+    @Test
+    public void testMarginFollowsWeights() {
+        int[] weights = LiteEval.getWeights();
+        int margin = LiteEval.lazyMargin();
+        int pawns = LitePawnEval.maxScore();
+        int king = LiteAttacks.maxKingSafety();
+        try {
+            int[] tuned = weights.clone();
+            tuned[LiteEval.PASSED] *= 2;
+            tuned[LiteEval.MOBILITY] *= 2;
+            tuned[LiteEval.KING_ATTACK] *= 2;
+            LiteEval.setWeights(tuned);
+            assertTrue("a bigger passed weight raises the pawn bound", LitePawnEval.maxScore() > pawns);
+            assertTrue("a bigger king attack weight raises the king bound", LiteAttacks.maxKingSafety() > king);
+            assertEquals("the margin grows with the weights",
+                    margin + LitePawnEval.maxScore() - pawns + LiteAttacks.maxKingSafety() - king
+                            + LiteEval.MOBILITY_SPREAD * weights[LiteEval.MOBILITY],
+                    LiteEval.lazyMargin());
+        } finally {
+            LiteEval.setWeights(weights);
+        }
+        assertEquals(margin, LiteEval.lazyMargin());
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LiteEvalCacheTest {
+    // the same placement of pieces with the other side to move
+    private static LiteBoard otherSideToMove(final LiteBoard board) {
+        LiteBoard other = new LiteBoard(board);
+        other.turn = (board.turn + 1) % 2;
+        return other;
+    }
+
+    @Test
+    public void testSideToMoveIsPartOfTheKey() {
+        LiteEval.setBoardEvaluator(board -> (board.turn == Side.White) ? 25 : -25);
+        try {
+            LiteEvalCache cache = new LiteEvalCache(1);
+            LiteBoard white = new LiteBoard();
+            LiteBoard black = otherSideToMove(white);
+            assertEquals(white.hashKey, black.hashKey);
+
+            assertEquals(25, cache.evaluate(white));
+            assertEquals(-25, cache.evaluate(black));
+            assertEquals(25, cache.evaluate(white, -100, 100));
+            assertEquals(-25, cache.evaluate(black, -100, 100));
+            assertEquals(2, cache.numMisses.sum());
+            assertEquals(2, cache.numHits.sum());
+        } finally {
+            LiteEval.setBoardEvaluator(null);
+        }
+    }
+
+    @Test
+    public void testNetworkScoresEachSideToMove() {
+        LiteNNUE net = LiteNNUE.random(16, 8, 8, 11L);
+        LiteNNUE.use(net);
+        try {
+            LiteEvalCache cache = new LiteEvalCache(1);
+            LiteBoard white = new LiteBoard();
+            EngineTuningTests.setupBoard(white, "r1bqk2r/ppp2ppp/2n5/4P3/2Bp2n1/5N1P/PP1N1PP1/R2Q1RK1 w kq - 1 10");
+            LiteBoard black = otherSideToMove(white);
+
+            for (int pass = 0; pass < 2; pass++) {
+                assertEquals(net.evaluate(white), cache.evaluate(white));
+                assertEquals(net.evaluate(black), cache.evaluate(black));
+            }
+            assertNotEquals("the network should see the side to move", net.evaluate(white), net.evaluate(black));
+            assertEquals(2, cache.numHits.sum());
+        } finally {
+            LiteNNUE.use(null);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class LiteMinimaxTest {
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    @Test
+    public void testStoppedSearchPlaysTheLastDepthItFinished() {
+        // taking the queen is the best move at every depth but far more moves are
+        // needed to get to the end of a deep search than the limit allows
+        LiteBoard board = setup("k7/8/8/3q4/8/8/3Q4/K7 w - - 0 1");
+        LiteMinimax agent = new LiteMinimax("", 8, 0);
+        agent.setNodeLimit(2_000);
+
+        Move move = agent.bestMove(board, false);
+        assertEquals("d2d5", UCI.toUci(board, move));
+
+        // nothing from the search that was cut off is left in the move cache
+        assertNull(agent.cachedMoves.peekBestMove(board.board, true));
+    }
+}
@@ -0,0 +1,73 @@
+import org.junit.Assume;
+import org.junit.Test;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+public class LiteNNUEKernelTest {
+    private static short[] randomShorts(final Random random, final int count, final int range) {
+        short[] values = new short[count];
+        for (int i = 0; i < count; i++) values[i] = (short) (random.nextInt(2 * range + 1) - range);
+        return values;
+    }
+
+    private static int[] randomInts(final Random random, final int count, final int range) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = random.nextInt(2 * range + 1) - range;
+        return values;
+    }
+
+    // The Vector API kernel is only there when src-vector is built and the tests run with --add-modules jdk.incubator.vector
+    @Test
+    public void testVectorKernelMatchesScalarKernel() {
+        LiteNNUEKernel vector = LiteNNUEKernel.loadVector();
+        Assume.assumeNotNull(vector);
+        LiteNNUEKernel scalar = new LiteNNUEKernel.Scalar();
+
+        Random random = new Random(20191021L);
+        // lengths that are and aren't a multiple of the vector length
+        for (int count : new int[]{1, 7, 16, 32, 33, 256, 259}) {
+            short[] weights = randomShorts(random, count * 3, 300);
+            short[] start = randomShorts(random, count, 200);
+
+            short[] expected = start.clone();
+            short[] actual = start.clone();
+            scalar.add(expected, weights, count, count);
+            vector.add(actual, weights, count, count);
+            assertArrayEquals("add", expected, actual);
+            scalar.subtract(expected, weights, 2 * count, count);
+            vector.subtract(actual, weights, 2 * count, count);
+            assertArrayEquals("subtract", expected, actual);
+
+            short[] expectedClip = new short[count + 5];
+            short[] actualClip = new short[count + 5];
+            scalar.clip(start, expectedClip, 5, count, 127);
+            vector.clip(start, actualClip, 5, count, 127);
+            assertArrayEquals("clip", expectedClip, actualClip);
+
+            int[] sums = randomInts(random, count, 1000);
+            int[] expectedSums = sums.clone();
+            scalar.addColumn(expectedSums, weights, count, 93, count);
+            vector.addColumn(sums, weights, count, 93, count);
+            assertArrayEquals("addColumn", expectedSums, sums);
+
+            int[] values = randomInts(random, count, 127);
+            assertEquals("dot", scalar.dot(values, weights, 2 * count, count), vector.dot(values, weights, 2 * count, count));
+        }
+    }
+
+    @Test
+    public void testNetworkGivesTheSameScoresOnEachKernel() {
+        LiteNNUEKernel original = LiteNNUE.getKernel();
+        LiteNNUE net = LiteNNUE.random(64, 16, 16, 3L);
+        try {
+            LiteNNUE.setKernel(new LiteNNUEKernel.Scalar());
+            LiteBoard board = new LiteBoard();
+            EngineTuningTests.setupBoard(board, "r1bqrnk1/pp2bp1p/2p2np1/3p2B1/3P4/2NBPN2/PPQ2PPP/1R3RK1 w - - 1 12");
+            int scalarScore = net.evaluate(board);
+            LiteNNUE.setKernel(LiteNNUEKernel.load());
+            assertEquals(scalarScore, net.evaluate(board));
+        } finally {
+            LiteNNUE.setKernel(original);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class LiteTunerTest {
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    // compare the pieces and side to move of two boards, ignoring whether the pieces have moved
+    private static void assertSamePosition(final LiteBoard expected, final LiteBoard actual) {
+        for (int ndx = 0; ndx < LiteBoard.BOARD_SIZE; ndx++) {
+            byte e = expected.board[ndx];
+            byte a = actual.board[ndx];
+            assertEquals("spot " + ndx, LiteUtil.isEmpty(e), LiteUtil.isEmpty(a));
+            if (LiteUtil.isEmpty(e)) continue;
+            assertEquals("spot " + ndx, LiteUtil.getType(e), LiteUtil.getType(a));
+            assertEquals("spot " + ndx, LiteUtil.getSide(e), LiteUtil.getSide(a));
+        }
+        assertEquals(expected.turn, actual.turn);
+    }
+
+    @Test
+    public void testParseResult() {
+        assertEquals(2, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 1-0"));
+        assertEquals(0, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 0-1"));
+        assertEquals(1, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 1/2-1/2"));
+        assertEquals(1, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - c9 \"1/2-1/2\";"));
+
+        assertEquals(2, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 [1.0]"));
+        assertEquals(2, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 [1]"));
+        assertEquals(1, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 [0.5]"));
+        assertEquals(0, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 [0.0]"));
+        assertEquals(0, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 [0]"));
+
+        assertEquals(-1, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1"));
+        assertEquals(-1, LiteTuner.parseResult("8/8/8/8/8/8/8/K6k w - - 0 1 *"));
+    }
+
+    @Test
+    public void testPackedPositionsUnpackToTheSameBoard() {
+        String[] fens = {
+                "r1bqk2r/pppp1ppp/2n2n2/4p3/1bB1P3/2N2N2/PPPP1PPP/R1BQK2R b KQkq - 4 5",
+                "8/5pk1/6p1/3Pp3/8/1Q6/5PPP/6K1 w - e6 0 40",
+        };
+        String[] results = {"1/2-1/2", "0-1"};
+
+        LiteTuner tuner = new LiteTuner();
+        for (int i = 0; i < fens.length; i++) {
+            assertTrue(tuner.add(fens[i] + " " + results[i]));
+        }
+
+        LiteBoard board = new LiteBoard();
+        for (int i = 0; i < fens.length; i++) {
+            tuner.unpack(i, board);
+            assertSamePosition(setup(fens[i]), board);
+        }
+        assertEquals(Side.Black, setup(fens[0]).turn);
+        assertEquals(0.5, tuner.result(0), 0.0);
+        assertEquals(0.0, tuner.result(1), 0.0);
+    }
+
+    @Test
+    public void testLinesThatArentPositions() {
+        LiteTuner tuner = new LiteTuner();
+        assertFalse("no result", tuner.add("8/8/8/8/8/8/8/K6k w - - 0 1"));
+        assertFalse("seven rows", tuner.add("8/8/8/8/8/8/K6k w - - 0 1 1-0"));
+        assertFalse("not a piece", tuner.add("8/8/8/8/8/8/8/K5xk w - - 0 1 1-0"));
+    }
+
+    @Test
+    public void testQuietingPlaysOutTheCaptures() {
+        LiteTuner tuner = new LiteTuner();
+        // the rook takes the queen and the pawn takes the rook back, then nothing can be taken
+        assertTrue(tuner.add("4k3/8/2p5/3q4/8/8/8/3RK3 w - - 0 1 1-0"));
+        assertTrue(tuner.add("4k3/8/8/3p4/8/8/8/4K3 w - - 0 1 1-0"));
+        // nothing to take so it stays as it is
+        assertTrue(tuner.add("4k3/pppp4/8/8/8/8/PPPP4/4K3 b - - 0 1 0-1"));
+        tuner.quietAll();
+
+        LiteBoard quieted = new LiteBoard();
+        LiteBoard expected = new LiteBoard();
+        tuner.unpack(0, quieted);
+        tuner.unpack(1, expected);
+        assertSamePosition(expected, quieted);
+
+        tuner.unpack(2, quieted);
+        assertSamePosition(setup("4k3/pppp4/8/8/8/8/PPPP4/4K3 b - - 0 1"), quieted);
+
+        // the result is kept with the quieted position
+        assertEquals(1.0, tuner.result(0), 0.0);
+        assertEquals(0.0, tuner.result(2), 0.0);
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MatchRunnerTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testVariance() {
+        // an even score: each win and loss is 0.5 from it and draws are right on it
+        assertEquals(0.5, MatchRunner.score(30, 40, 30), EPSILON);
+        assertEquals(0.15, MatchRunner.variance(30, 40, 30), EPSILON);
+
+        // a score of 0.75: wins and draws are 0.25 off it and losses 0.75
+        assertEquals(0.75, MatchRunner.score(60, 30, 10), EPSILON);
+        assertEquals((90 * 0.0625 + 10 * 0.5625) / 100, MatchRunner.variance(60, 30, 10), EPSILON);
+
+        assertEquals(0.0, MatchRunner.variance(0, 10, 0), EPSILON);
+    }
+
+    @Test
+    public void testEloText() {
+        assertEquals("Elo 0.0 +/- 0.0", MatchRunner.eloText(0, 0, 0));
+        // a score of 0.75 is 400 * log10(3) Elo and 1.96 standard errors of it are about +/- 0.066
+        assertEquals("Elo 190.8 +/- 62.0", MatchRunner.eloText(60, 30, 10));
+        // a clean sweep is clamped to a score of 0.999 and has no spread
+        assertEquals("Elo 1199.8 +/- 0.0", MatchRunner.eloText(10, 0, 0));
+    }
+
+    @Test
+    public void testLLR() {
+        // elo0 = 0 and elo1 = 5 expect scores of 0.5 and 1 / (1 + 10^(-5/400))
+        double s0 = 0.5;
+        double s1 = 1.0 / (1.0 + Math.pow(10.0, -5.0 / 400.0));
+
+        assertEquals((s1 - s0) * (1.5 - s0 - s1) * 100 / (2 * 0.1125),
+                MatchRunner.llr(60, 30, 10, 0, 5), EPSILON);
+        assertEquals(1.5759, MatchRunner.llr(60, 30, 10, 0, 5), 1e-4);
+
+        // an even score leans a little towards elo0
+        assertEquals(-0.0173, MatchRunner.llr(30, 40, 30, 0, 5), 1e-4);
+
+        // nothing to go on without games or with no spread in the results
+        assertEquals(0.0, MatchRunner.llr(0, 0, 0, 0, 5), EPSILON);
+        assertEquals(0.0, MatchRunner.llr(0, 10, 0, 0, 5), EPSILON);
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class PGNTest {
+    private static final String GAMES = String.join("\n",
+            "[Event \"Casual \\\"blitz\\\"\"]",
+            "[Site \"?\"]",
+            "[White \"Anderssen\"]",
+            "[Black \"Kieseritzky\"]",
+            "[Result \"1-0\"]",
+            "",
+            "1.e4 e5 2. f4 {King's Gambit} exf4 $1 3. Bc4 (3. Nf3 g5 (3... d5) 4. h4) Qh4+",
+            "4.Kf1 b5?! ; the Bryan",
+            "5. Bxb5 1-0",
+            "",
+            "[Event \"No result\"]",
+            "[FEN \"4k3/8/8/8/8/8/8/R3K3 w Q - 0 30\"]",
+            "[SetUp \"1\"]",
+            "",
+            "30. O-O-O Ke7",
+            "",
+            "[Event \"Last\"]",
+            "",
+            "1. d4 d5 1/2-1/2",
+            "");
+
+    private static PGN.Game[] readAll(final String text) throws IOException {
+        try (PGN.Reader reader = new PGN.Reader(new StringReader(text))) {
+            PGN.Game[] games = new PGN.Game[4];
+            for (int i = 0; i < games.length; i++) {
+                games[i] = reader.read();
+            }
+            return games;
+        }
+    }
+
+    @Test
+    public void testReader() throws IOException {
+        PGN.Game[] games = readAll(GAMES);
+
+        PGN.Game first = games[0];
+        assertEquals("Casual \"blitz\"", first.tag("Event"));
+        assertEquals("Anderssen", first.tag("White"));
+        // comments, variations, annotations and move numbers are left out
+        assertEquals(Arrays.asList("e4", "e5", "f4", "exf4", "Bc4", "Qh4+", "Kf1", "b5?!", "Bxb5"), first.moves);
+        assertEquals("1-0", first.getResult());
+        assertNull(first.getStartFEN());
+        assertEquals(9, PGN.replay(first, (board, move) -> { }));
+
+        PGN.Game second = games[1];
+        assertEquals("No result", second.tag("Event"));
+        assertEquals(Arrays.asList("O-O-O", "Ke7"), second.moves);
+        assertEquals("*", second.getResult());
+        assertEquals("4k3/8/8/8/8/8/8/R3K3 w Q - 0 30", second.getStartFEN());
+        assertEquals(2, PGN.replay(second, (board, move) -> { }));
+
+        assertEquals(Arrays.asList("d4", "d5"), games[2].moves);
+        assertEquals("1/2-1/2", games[2].getResult());
+        assertNull("the end of the file", games[3]);
+    }
+
+    @Test
+    public void testStripMoveNumber() {
+        assertEquals("e4", PGN.stripMoveNumber("12.e4"));
+        assertEquals("e5", PGN.stripMoveNumber("12...e5"));
+        assertEquals("", PGN.stripMoveNumber("12."));
+        assertEquals("", PGN.stripMoveNumber("12"));
+        assertEquals("Nf3", PGN.stripMoveNumber("Nf3"));
+    }
+
+    // Build a game the way the console and match runner do, with a fixed date
+    private static PGN.Game play(final String fen, final String... moves) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        if (fen != null) {
+            EngineTuningTests.setupBoard(board, fen);
+        }
+        PGN.Game game = new PGN.Game("Test \"match\"", "7", "new", "old", board);
+        game.tags.put("Date", "2020.04.25");
+        for (String san : moves) {
+            Move move = SAN.decode(board, san);
+            assertNotNull(san, move);
+            game.addMove(board, move);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        return game;
+    }
+
+    @Test
+    public void testFormat() {
+        PGN.Game game = play(null, "e4", "e5", "Nf3", "Nc6", "Bb5");
+        game.setResult("1/2-1/2", "agreed {early}");
+        String nl = System.lineSeparator();
+        assertEquals("[Event \"Test \\\"match\\\"\"]" + nl
+                        + "[Site \"?\"]" + nl
+                        + "[Date \"2020.04.25\"]" + nl
+                        + "[Round \"7\"]" + nl
+                        + "[White \"new\"]" + nl
+                        + "[Black \"old\"]" + nl
+                        + "[Result \"1/2-1/2\"]" + nl
+                        + nl
+                        + "1. e4 e5 2. Nf3 Nc6 3. Bb5 {agreed {early)} 1/2-1/2" + nl,
+                PGN.format(game));
+    }
+
+    @Test
+    public void testFormatFromBlackToMove() {
+        PGN.Game game = play("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", "O-O", "O-O-O", "Rf7");
+        game.setResult("*", null);
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1", game.getStartFEN());
+        assertEquals("1", game.tag("SetUp"));
+        String movetext = PGN.format(game).split(System.lineSeparator() + System.lineSeparator())[1];
+        assertEquals("1... O-O 2. O-O-O Rf7 *" + System.lineSeparator(), movetext);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // long enough to be wrapped onto several lines
+        String[] moves = {"d4", "Nf6", "c4", "e6", "Nc3", "Bb4", "e3", "O-O", "Bd3", "d5", "Nf3", "c5",
+                "O-O", "Nc6", "a3", "Bxc3", "bxc3", "dxc4", "Bxc4", "Qc7", "Bd3", "e5", "Qc2", "Re8",
+                "dxe5", "Nxe5", "Nxe5", "Qxe5", "f3", "Bd7", "a4", "Rac8", "Ba3", "b6", "e4", "c4", "Be2", "Qc5+"};
+        PGN.Game game = play(null, moves);
+        game.setResult("0-1", "resigns");
+        String text = PGN.format(game);
+        for (String line : text.split(System.lineSeparator())) {
+            assertTrue(line, line.length() < 80);
+        }
+
+        PGN.Game read = readAll(text + System.lineSeparator() + text)[1];
+        assertEquals(game.tags, read.tags);
+        assertEquals(game.moves, read.moves);
+        assertEquals("0-1", read.getResult());
+        assertEquals(moves.length, PGN.replay(read, (board, move) -> { }));
+    }
+}
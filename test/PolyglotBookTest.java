@@ -0,0 +1,97 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class PolyglotBookTest {
+    // The positions and keys given with the Polyglot book format
+    private static final Object[][] KEYS = {
+            {"", 0x463B96181691FC9CL},
+            {"e4", 0x823C9B50FD114196L},
+            {"e4 d5", 0x0756B94461C50FB0L},
+            {"e4 d5 e5", 0x662FAFB965DB29D4L},
+            {"e4 d5 e5 f5", 0x22A48B5A8E47FF78L},                // en passant on f6
+            {"e4 d5 e5 f5 Ke2", 0x652A607CA3F242C1L},            // White can't castle
+            {"e4 d5 e5 f5 Ke2 Kf7", 0x00FDD303C946BDD9L},        // neither side can castle
+            {"a4 b5 h4 b4 c4", 0x3C8123EA7B067637L},             // en passant on c3
+            {"a4 b5 h4 b4 c4 bxc3 Ra3", 0x5C3F9B829B279560L},    // White can only castle short
+    };
+
+    private static LiteBoard play(final String moves) {
+        LiteBoard board = new LiteBoard();
+        for (String san : moves.split(" ")) {
+            if (san.isEmpty()) continue;
+            Move move = SAN.decode(board, san);
+            assertNotNull(san, move);
+            board.executeMove(move);
+            board.advanceTurn();
+        }
+        return board;
+    }
+
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    @Test
+    public void testStartingPositionKey() {
+        assertEquals(0x463B96181691FC9CL, PolyglotBook.key(new LiteBoard()));
+    }
+
+    @Test
+    public void testKnownKeys() {
+        for (Object[] known : KEYS) {
+            String moves = (String) known[0];
+            assertEquals(moves, String.format("%016x", (Long) known[1]),
+                    String.format("%016x", PolyglotBook.key(play(moves))));
+        }
+    }
+
+    @Test
+    public void testKeysFromFEN() {
+        assertEquals(0x22A48B5A8E47FF78L,
+                PolyglotBook.key(setup("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3")));
+    }
+
+    @Test
+    public void testEncodeMove() {
+        LiteBoard board = new LiteBoard();
+        assertEquals(0x031C, PolyglotBook.encodeMove(board, SAN.decode(board, "e4")));
+        assertEquals(0x0195, PolyglotBook.encodeMove(board, SAN.decode(board, "Nf3")));
+
+        // castling is written as the king taking its own rook
+        LiteBoard castle = setup("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals(0x0107, PolyglotBook.encodeMove(castle, SAN.decode(castle, "O-O")));
+        assertEquals(0x0100, PolyglotBook.encodeMove(castle, SAN.decode(castle, "O-O-O")));
+
+        // pawns reaching the last row promote to a queen
+        LiteBoard promote = setup("7k/P7/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals(0x4C38, PolyglotBook.encodeMove(promote, SAN.decode(promote, "a8=Q")));
+    }
+
+    @Test
+    public void testDecodeMove() {
+        LiteBoard board = new LiteBoard();
+        Move e4 = PolyglotBook.decodeMove(board, 0x031C);
+        assertEquals("e2", "" + (char) ('a' + e4.getFromCol()) + (8 - e4.getFromRow()));
+        assertEquals("e4", "" + (char) ('a' + e4.getToCol()) + (8 - e4.getToRow()));
+        assertNull("e2e5 isn't legal", PolyglotBook.decodeMove(board, 0x0324));
+
+        LiteBoard castle = setup("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1");
+        Move shortCastle = PolyglotBook.decodeMove(castle, 0x0F3F);
+        assertNotNull(shortCastle);
+        assertEquals(4, shortCastle.getFromCol());
+        assertEquals(6, shortCastle.getToCol());
+        assertEquals(0, shortCastle.getToRow());
+        Move longCastle = PolyglotBook.decodeMove(castle, 0x0F38);
+        assertNotNull(longCastle);
+        assertEquals(2, longCastle.getToCol());
+
+        LiteBoard promote = setup("7k/P7/8/8/8/8/8/K7 w - - 0 1");
+        Move queen = PolyglotBook.decodeMove(promote, 0x4C38);
+        assertNotNull(queen);
+        assertEquals(0, queen.getToRow());
+    }
+}
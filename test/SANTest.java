@@ -0,0 +1,92 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class SANTest {
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    // decode a move and write it back
+    private static String roundTrip(final LiteBoard board, final String san) {
+        Move move = SAN.decode(board, san);
+        assertNotNull(san, move);
+        return SAN.encode(board, move);
+    }
+
+    @Test
+    public void testPawnAndPieceMoves() {
+        LiteBoard board = new LiteBoard();
+        assertEquals("e4", roundTrip(board, "e4"));
+        assertEquals("Nf3", roundTrip(board, "Nf3"));
+        assertEquals("e2e4", UCI.toUci(board, SAN.decode(board, "e4")));
+        assertNull("no piece can reach e5", SAN.decode(board, "Ne5"));
+        assertNull(SAN.decode(board, "x"));
+
+        LiteBoard capture = setup("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2");
+        assertEquals("exd5", roundTrip(capture, "exd5"));
+        assertEquals("exd5", roundTrip(capture, "exd5!?"));
+
+        LiteBoard enPassant = setup("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertEquals("exf6", roundTrip(enPassant, "exf6 e.p."));
+    }
+
+    @Test
+    public void testDisambiguation() {
+        // by file
+        LiteBoard knights = setup("4k3/8/8/8/8/8/8/1N1K1N2 w - - 0 1");
+        assertNull("either knight can go to d2", SAN.decode(knights, "Nd2"));
+        assertEquals("Nbd2", roundTrip(knights, "Nbd2"));
+        assertEquals("Nfd2", roundTrip(knights, "Nfd2"));
+        assertEquals("b1d2", UCI.toUci(knights, SAN.decode(knights, "Nbd2")));
+
+        // by rank
+        LiteBoard rooks = setup("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        assertEquals("R1a3", roundTrip(rooks, "R1a3"));
+        assertEquals("R5a3", roundTrip(rooks, "R5a3"));
+        assertEquals("only one rook reaches b5", "Rb5", roundTrip(rooks, "Rb5"));
+
+        // by both
+        LiteBoard queens = setup("4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1");
+        assertEquals("Qa1b2", roundTrip(queens, "Qa1b2"));
+        assertEquals("Q3b2", roundTrip(queens, "Qa3b2"));
+        assertEquals("Qcb2", roundTrip(queens, "Qcb2"));
+    }
+
+    @Test
+    public void testCastling() {
+        LiteBoard board = setup("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("O-O", roundTrip(board, "O-O"));
+        assertEquals("O-O-O", roundTrip(board, "O-O-O"));
+        assertEquals("O-O", roundTrip(board, "0-0"));
+        assertEquals("O-O-O", roundTrip(board, "0-0-0"));
+        assertEquals("e1g1", UCI.toUci(board, SAN.decode(board, "O-O")));
+        assertEquals("e1c1", UCI.toUci(board, SAN.decode(board, "O-O-O")));
+
+        assertNull(SAN.decode(setup("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1"), "O-O"));
+    }
+
+    @Test
+    public void testPromotion() {
+        LiteBoard board = setup("7k/P7/8/8/8/8/8/K7 w - - 0 1");
+        // the queen on a8 checks the king along the back row
+        assertEquals("a8=Q+", roundTrip(board, "a8=Q"));
+        assertEquals("a8=Q+", roundTrip(board, "a8Q"));
+        // the board can only promote to a queen so other promotions can't be played
+        assertNull(SAN.decode(board, "a8=N"));
+        assertNull(SAN.decode(board, "a8R"));
+        assertNull(SAN.decode(board, "a8=B+"));
+        assertEquals("a7a8q", UCI.toUci(board, SAN.decode(board, "a8=Q+")));
+    }
+
+    @Test
+    public void testCheckAndMate() {
+        LiteBoard board = setup("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        assertEquals("Ra8#", roundTrip(board, "Ra8"));
+        assertEquals("Ra8#", roundTrip(board, "Ra8+"));
+        assertEquals("Ra7", roundTrip(board, "Ra7"));
+    }
+}
@@ -0,0 +1,67 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.*;
+
+public class SplitPointSearchTest {
+    private static final int DEPTH = 3;
+
+    // middle game positions with plenty of moves at every node so the younger brothers get split off
+    private static final String[] POSITIONS = {
+            EngineTuningTests.suite2[0],
+            EngineTuningTests.suite2[2],
+            EngineTuningTests.kaufmanTest[0],
+            EngineTuningTests.kaufmanTest[1],
+    };
+
+    private boolean useThreads;
+    private boolean useCache;
+
+    @Before
+    public void setUp() {
+        Main.options = new HashMap<>();
+        useThreads = Main.useThreads;
+        useCache = Main.useCache;
+        // the move cache hands out values found by whichever search got there first, so
+        // with it on the values depend on the order the tree is searched in
+        Main.useCache = false;
+    }
+
+    @After
+    public void tearDown() {
+        Main.useThreads = useThreads;
+        Main.useCache = useCache;
+    }
+
+    // the value of the best move on a board searched to DEPTH, in the pool given or sequentially if it is null
+    private static int search(final String position, final ForkJoinPool pool) {
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, position);
+        LiteMinimax agent = new LiteMinimax("", DEPTH, 0);
+        agent.setBook(null);
+        Main.useThreads = (pool != null);
+        agent.setSearchPool(pool);
+        assertNotNull(position, agent.bestMove(board, false));
+        return agent.best.value;
+    }
+
+    @Test
+    public void testSplitPointsFindTheSequentialValues() {
+        ForkJoinPool[] pools = {new ForkJoinPool(2), new ForkJoinPool(4)};
+        try {
+            for (String position : POSITIONS) {
+                int expected = search(position, null);
+                for (ForkJoinPool pool : pools) {
+                    assertEquals(position + " with " + pool.getParallelism() + " workers",
+                            expected, search(position, pool));
+                }
+            }
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdownNow();
+            }
+        }
+    }
+}
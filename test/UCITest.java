@@ -0,0 +1,72 @@
+import org.junit.Test;
+import java.util.HashMap;
+import static org.junit.Assert.*;
+
+public class UCITest {
+    private static LiteBoard setup(final String fen) {
+        Main.options = new HashMap<>();
+        LiteBoard board = new LiteBoard();
+        EngineTuningTests.setupBoard(board, fen);
+        return board;
+    }
+
+    // the value a search gives a move that leaves the other side with no moves this many plies from the end
+    private static int mate(final int depthLeft) {
+        return LiteUtil.MAX_VALUE - (100 - depthLeft);
+    }
+
+    @Test
+    public void testFindMove() {
+        LiteBoard board = new LiteBoard();
+        Move e4 = UCI.findMove(board, "e2e4");
+        assertNotNull(e4);
+        assertEquals("e2e4", UCI.toUci(board, e4));
+        assertNull("e2e5 isn't legal", UCI.findMove(board, "e2e5"));
+        assertNull(UCI.findMove(board, "e2"));
+
+        LiteBoard castle = setup("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("e1g1", UCI.toUci(castle, UCI.findMove(castle, "e1g1")));
+        assertEquals("e1c1", UCI.toUci(castle, UCI.findMove(castle, "e1c1")));
+
+        // any promotion piece is taken as the queen
+        LiteBoard promote = setup("7k/P7/8/8/8/8/8/K7 w - - 0 1");
+        Move queen = UCI.findMove(promote, "a7a8n");
+        assertNotNull(queen);
+        assertEquals("a7a8q", UCI.toUci(promote, queen));
+    }
+
+    @Test
+    public void testCentipawnScores() {
+        assertEquals("cp 150", UCI.score(150 * LiteEval.positionScale, Side.White, 4));
+        assertEquals("cp -150", UCI.score(150 * LiteEval.positionScale, Side.Black, 4));
+        assertEquals("cp 0", UCI.score(0, Side.White, 4));
+    }
+
+    @Test
+    public void testStartingBoundIsNotAScore() {
+        assertNull(UCI.score(LiteUtil.MAX_VALUE, Side.White, 4));
+        assertNull(UCI.score(LiteUtil.MIN_VALUE, Side.Black, 4));
+    }
+
+    @Test
+    public void testMateScores() {
+        // found by the root's move on a 4 ply search: mate in 1
+        assertEquals("mate 1", UCI.score(mate(4), Side.White, 4));
+        // found 3 plies in: mate in 2
+        assertEquals("mate 2", UCI.score(mate(2), Side.White, 4));
+        // mated, from the side to move's point of view
+        assertEquals("mate -2", UCI.score(mate(2), Side.Black, 4));
+        assertEquals("mate 2", UCI.score(-mate(2), Side.Black, 4));
+    }
+
+    @Test
+    public void testMatesFoundInTheQuiescenceSearch() {
+        // plies 5, 6 and 7 of a 4 ply search are the captures searched past its end
+        assertEquals("mate 3", UCI.score(mate(0), Side.White, 4));
+        assertEquals("mate -3", UCI.score(-mate(-1), Side.White, 4));
+        assertEquals("mate 4", UCI.score(mate(-LiteMinimax.QUIESCENCE_DEPTH), Side.White, 4));
+
+        // just past the deepest mate a search can find is an ordinary score
+        assertTrue(UCI.score(mate(-LiteMinimax.QUIESCENCE_DEPTH - 1), Side.White, 4).startsWith("cp "));
+    }
+}